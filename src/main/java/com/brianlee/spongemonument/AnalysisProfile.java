@@ -0,0 +1,54 @@
+package com.brianlee.spongemonument;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+/**
+ * Runtime switches for disposable analysis runs (Loom runServer driven by runAll).
+ *
+ * The storage and startup switches are dev-only: a real server world must never lose its saves, so they
+ * report {@code false} outside the development environment (and in serve mode) regardless of -Dsponge.* flags.
+ */
+public final class AnalysisProfile {
+    private AnalysisProfile() {}
+
+    // Resolved once; the mixins query these on hot storage paths.
+    private static final boolean DEV = FabricLoader.getInstance().isDevelopmentEnvironment();
+
+    // -Dsponge.mode=serve, or a non-dev server started without -Dsponge.seed: an ordinary server that only
+    // answers /sponge queries. No batch, no hard exit, no world deletion.
+    private static final boolean SERVE = System.getProperty("sponge.mode", "").trim().equalsIgnoreCase("serve")
+            || (!DEV && System.getProperty("sponge.seed", "").isBlank());
+
+    // -Dsponge.storage=memory|disk (default memory). "memory" turns chunk/POI/entity storage into no-ops.
+    private static final boolean ZERO_PERSISTENCE =
+            DEV && !SERVE && !System.getProperty("sponge.storage", "memory").trim().equalsIgnoreCase("disk");
+
+    // -Dsponge.fastStartup=1|0 (default 1). Skips spawn search/preparation and extra dimensions.
+    private static final boolean FAST_STARTUP =
+            DEV && !SERVE && !System.getProperty("sponge.fastStartup", "1").trim().equals("0");
+
+    /**
+     * True when chunk, POI and entity storage should never touch region files.
+     * Writes are dropped and reads report "nothing saved", so the server regenerates on demand.
+     */
+    public static boolean zeroPersistence() {
+        return ZERO_PERSISTENCE;
+    }
+
+    /**
+     * True when the server should boot straight to SERVER_STARTED: no spawn search, no spawn-area
+     * chunk preparation and no Nether/End worlds. Analysis only ever reads overworld structure starts.
+     */
+    public static boolean fastStartup() {
+        return FAST_STARTUP;
+    }
+
+    /** True when the server is a normal (persistent) world serving the in-game command instead of running a batch. */
+    public static boolean serveOnly() {
+        return SERVE;
+    }
+
+    public static String storageMode() {
+        return ZERO_PERSISTENCE ? "memory" : "disk";
+    }
+}
@@ -0,0 +1,78 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Per-batch cost report written by the analyze phase ({@code batch_stats_<batchStart>.properties}).
+ *
+ * runAll reads it to size the next batch: heap retained per candidate against the server's -Xmx,
+ * and whether the batch died with OutOfMemoryError (then it halves the batch and retries).
+ */
+public final class BatchStats {
+
+    public static final String FILE_PREFIX = "batch_stats_";
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final int batchStart;
+    private final long startNanos;
+    private final long startHeapUsed;
+    private int processed;
+
+    private BatchStats(int batchStart) {
+        this.batchStart = batchStart;
+        this.startHeapUsed = settledHeapUsed();
+        this.startNanos = System.nanoTime();
+    }
+
+    /** Takes the baseline (after a GC) right before the first candidate is analyzed. */
+    public static BatchStats begin(int batchStart) {
+        return new BatchStats(batchStart);
+    }
+
+    public void candidateDone() {
+        processed++;
+    }
+
+    public static Path file(Path outDir, int batchStart) {
+        return outDir.resolve(FILE_PREFIX + batchStart + ".properties");
+    }
+
+    /** Writes the report; {@code oom} marks a batch that failed with OutOfMemoryError. */
+    public void finish(Path outDir, boolean oom) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        // After an OOM the heap is by definition full; the retained figure is only meaningful on success.
+        long retained = oom ? memory.getHeapMemoryUsage().getMax() - startHeapUsed : Math.max(0L, settledHeapUsed() - startHeapUsed);
+
+        Properties p = new Properties();
+        p.setProperty("batchStart", Integer.toString(batchStart));
+        p.setProperty("processed", Integer.toString(processed));
+        p.setProperty("oom", Boolean.toString(oom));
+        p.setProperty("elapsedMs", Long.toString(elapsedNanos / 1_000_000L));
+        p.setProperty("heapMaxBytes", Long.toString(memory.getHeapMemoryUsage().getMax()));
+        p.setProperty("heapRetainedBytes", Long.toString(retained));
+        p.setProperty("heapRetainedPerCandidate", Long.toString(processed == 0 ? 0L : retained / processed));
+        p.setProperty("nanosPerCandidate", Long.toString(processed == 0 ? 0L : elapsedNanos / processed));
+
+        Path out = file(outDir, batchStart);
+        try (OutputStream os = Files.newOutputStream(out)) {
+            p.store(os, "SpongeMonument analyze batch stats");
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (analyze) Failed writing {}", out.getFileName(), e);
+        }
+
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (analyze) batch stats: processed={} oom={} elapsedMs={} heapRetainedPerCandidate={} bytes nanosPerCandidate={}",
+                processed, oom, p.getProperty("elapsedMs"), p.getProperty("heapRetainedPerCandidate"), p.getProperty("nanosPerCandidate"));
+    }
+
+    private long settledHeapUsed() {
+        // Explicit GC so "used" reflects retained objects (loaded chunks, structure starts), not garbage.
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
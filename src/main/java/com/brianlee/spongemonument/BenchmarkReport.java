@@ -0,0 +1,217 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Checks the runs made by the spongeBenchmark task against stored expectations.
+ *
+ * benchmark/cases.csv lists the golden cases ({@code name,seed,radiusBlocks,excludeRadiusBlocks}). For each case
+ * the task leaves {@code benchmark/runs/<name>/} holding run.properties (wall time of the whole runAll),
+ * merge_stats.properties and every phase_stats_*.properties.
+ *
+ * Correctness is exact: candidate count, monument count and the full room histogram must equal
+ * benchmark/golden/<name>.properties. Performance is compared with benchmark/baseline.properties within
+ * -Dsponge.benchTimeTolerance (default 0.25) for wall time, throughput and GC time, and
+ * -Dsponge.benchMemoryTolerance (default 0.15) for peak RSS. Results go to benchmark/report.csv.
+ *
+ * Each golden file also records the seed, radiusBlocks and excludeRadiusBlocks it was produced with, and a case
+ * whose parameters in cases.csv no longer match its golden file is an error: re-record it.
+ *
+ * With -Dsponge.benchRecord=1 the current runs become the new golden files and baseline instead. Outside record mode a
+ * case without a golden file or baseline is an error rather than a pass.
+ */
+public final class BenchmarkReport {
+    private BenchmarkReport() {}
+
+    public static final String DIR_NAME = "benchmark";
+
+    // Run parameters copied from run.properties into each golden file; checked, not compared as results.
+    private static final List<String> CASE_KEYS = List.of("seed", "radiusBlocks", "excludeRadiusBlocks");
+    public static final String REPORT_FILE = "report.csv";
+
+    // GC time of a short run is a few hundred ms at most; don't fail on noise below this.
+    private static final long GC_SLACK_MS = 250L;
+
+    private record Row(String caseName, String metric, String value, String expected, String limit, boolean pass) {}
+
+    public static void run(Path baseDir) {
+        Path benchDir = baseDir.resolve(DIR_NAME);
+        Path casesFile = benchDir.resolve("cases.csv");
+        if (!Files.exists(casesFile)) {
+            throw new IllegalStateException(casesFile.toAbsolutePath() + " not found");
+        }
+
+        boolean record = !"0".equals(System.getProperty("sponge.benchRecord", "0"));
+        double timeTol = Double.parseDouble(System.getProperty("sponge.benchTimeTolerance", "0.25"));
+        double memTol = Double.parseDouble(System.getProperty("sponge.benchMemoryTolerance", "0.15"));
+
+        Path baselineFile = benchDir.resolve("baseline.properties");
+        Properties baseline = Files.exists(baselineFile) ? load(baselineFile) : new Properties();
+
+        // spongeBenchmark passes the cases it actually ran (-Dsponge.benchCases narrows the set).
+        String only = System.getProperty("sponge.benchCases", "").trim();
+        List<String> names = caseNames(casesFile);
+        if (!only.isEmpty()) {
+            List<String> selected = List.of(only.split("\\s*,\\s*"));
+            names.removeIf(n -> !selected.contains(n));
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (String name : names) {
+            Path runDir = benchDir.resolve("runs").resolve(name);
+            Properties run = load(runDir.resolve("run.properties"));
+            Properties merge = load(runDir.resolve(MonumentLocateSmokeTest.MERGE_STATS_FILE));
+
+            long wallMs = Long.parseLong(run.getProperty("wallMs"));
+            long candidates = Long.parseLong(merge.getProperty("candidates"));
+            long peakRssKb = -1L;
+            long gcMs = 0L;
+            try (var files = Files.list(runDir)) {
+                for (Path f : files.filter(p -> p.getFileName().toString().startsWith(PhaseStats.FILE_PREFIX)).toList()) {
+                    Properties phase = load(f);
+                    peakRssKb = Math.max(peakRssKb, Long.parseLong(phase.getProperty("peakRssKb", "-1")));
+                    gcMs += Long.parseLong(phase.getProperty("gcMs", "0"));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed listing " + runDir.toAbsolutePath(), e);
+            }
+            double candidatesPerSec = wallMs > 0 ? candidates * 1000.0 / wallMs : 0.0;
+
+            Path goldenFile = benchDir.resolve("golden").resolve(name + ".properties");
+            if (record) {
+                Properties golden = new Properties();
+                for (String key : merge.stringPropertyNames()) {
+                    golden.setProperty(key, merge.getProperty(key));
+                }
+                for (String key : CASE_KEYS) {
+                    golden.setProperty("case." + key, run.getProperty(key));
+                }
+                store(goldenFile, golden, "SpongeMonument golden results for " + name);
+                baseline.setProperty(name + ".wallMs", Long.toString(wallMs));
+                baseline.setProperty(name + ".candidatesPerSec", fmt(candidatesPerSec));
+                baseline.setProperty(name + ".peakRssKb", Long.toString(peakRssKb));
+                baseline.setProperty(name + ".gcMs", Long.toString(gcMs));
+            }
+
+            // ---- correctness (exact) ----
+            if (!Files.exists(goldenFile) || baseline.getProperty(name + ".wallMs") == null) {
+                throw new IllegalStateException("No golden results or baseline for case '" + name + "' in " + benchDir.toAbsolutePath()
+                        + "; record them first with ./gradlew -Dsponge.benchRecord=1 spongeBenchmark");
+            }
+            Properties golden = load(goldenFile);
+            for (String key : CASE_KEYS) {
+                String recorded = golden.getProperty("case." + key);
+                if (recorded != null && !recorded.equals(run.getProperty(key))) {
+                    throw new IllegalStateException("Golden results for case '" + name + "' were recorded with " + key + "=" + recorded
+                            + " but cases.csv now says " + run.getProperty(key) + "; re-record with -Dsponge.benchRecord=1");
+                }
+            }
+            TreeSet<String> keys = new TreeSet<>(golden.stringPropertyNames());
+            keys.removeIf(k -> k.startsWith("case."));
+            keys.addAll(merge.stringPropertyNames());
+            for (String key : keys) {
+                String actual = merge.getProperty(key, "0");
+                String expected = golden.getProperty(key, "0");
+                rows.add(new Row(name, key, actual, expected, "exact", actual.equals(expected)));
+            }
+
+            // ---- performance (against baseline, within tolerance) ----
+            rows.add(upperBound(name, "wallMs", wallMs, baseline, timeTol, 0L));
+            rows.add(lowerBound(name, "candidatesPerSec", candidatesPerSec, baseline, timeTol));
+            rows.add(peakRssKb < 0
+                    ? new Row(name, "peakRssKb", "n/a", "", "", true)
+                    : upperBound(name, "peakRssKb", peakRssKb, baseline, memTol, 0L));
+            rows.add(upperBound(name, "gcMs", gcMs, baseline, timeTol, GC_SLACK_MS));
+        }
+
+        if (record) {
+            store(baselineFile, baseline, "SpongeMonument performance baseline");
+        }
+
+        Path reportFile = benchDir.resolve(REPORT_FILE);
+        int failures = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(reportFile)) {
+            w.write("case,metric,value,expected,limit,status\n");
+            for (Row r : rows) {
+                if (!r.pass()) failures++;
+                w.write(r.caseName() + "," + r.metric() + "," + r.value() + "," + r.expected() + "," + r.limit() + "," + (r.pass() ? "PASS" : "FAIL") + "\n");
+                System.out.println("[SpongeMonument] (benchmark) " + (r.pass() ? "PASS " : "FAIL ") + r.caseName() + " " + r.metric()
+                        + "=" + r.value() + (r.expected().isEmpty() ? "" : " (expected " + r.expected() + (r.limit().isEmpty() || r.limit().equals("exact") ? "" : ", limit " + r.limit()) + ")"));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing benchmark report: " + reportFile.toAbsolutePath(), e);
+        }
+
+        System.out.println("[SpongeMonument] (benchmark) " + (record ? "Recorded golden results and baseline; " : "")
+                + failures + " failure(s); report: " + reportFile.toAbsolutePath());
+        if (failures > 0) {
+            throw new IllegalStateException(failures + " benchmark check(s) failed (see " + reportFile.getFileName() + ")");
+        }
+    }
+
+    private static Row upperBound(String name, String metric, long value, Properties baseline, double tol, long slack) {
+        String b = baseline.getProperty(name + "." + metric);
+        if (b == null) return new Row(name, metric, Long.toString(value), "", "no baseline", true);
+        long limit = (long) Math.ceil(Double.parseDouble(b) * (1.0 + tol)) + slack;
+        return new Row(name, metric, Long.toString(value), b, Long.toString(limit), value <= limit);
+    }
+
+    private static Row lowerBound(String name, String metric, double value, Properties baseline, double tol) {
+        String b = baseline.getProperty(name + "." + metric);
+        if (b == null) return new Row(name, metric, fmt(value), "", "no baseline", true);
+        double limit = Double.parseDouble(b) * (1.0 - tol);
+        return new Row(name, metric, fmt(value), b, fmt(limit), value >= limit);
+    }
+
+    static List<String> caseNames(Path casesFile) {
+        List<String> names = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(casesFile)) {
+                String s = line.trim();
+                if (s.isEmpty() || s.startsWith("#") || s.startsWith("name,")) continue;
+                names.add(s.substring(0, s.indexOf(',')).trim());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + casesFile.toAbsolutePath(), e);
+        }
+        return names;
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.1f", v);
+    }
+
+    private static Properties load(Path file) {
+        if (!Files.exists(file)) {
+            throw new IllegalStateException(file.toAbsolutePath() + " not found (run spongeBenchmark first)");
+        }
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + file.toAbsolutePath(), e);
+        }
+        return p;
+    }
+
+    private static void store(Path file, Properties p, String comment) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream os = Files.newOutputStream(file)) {
+                p.store(os, comment);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing " + file.toAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.Structure;
+
+/**
+ * Calibration mode (-Dsponge.mode=calibrate): measures every {@link BiomeTier} against the real answer for one
+ * seed, so a run can use the cheapest tier that still finds every monument.
+ *
+ * Placement regions of the scan shape are drawn in random order (same culling as the coords phase). For each one,
+ * every tier's biome check is timed, then the candidate's structure start is generated, which is vanilla's verdict,
+ * and that is timed too. Per tier the report gives the monuments it would miss, the false positives it would
+ * hand to the analyze phase, its check cost, and the end-to-end cost of a region: the check plus one structure
+ * start for every candidate the tier passes. The recommended tier is the cheapest end to end among the tiers
+ * with the fewest misses.
+ */
+public final class BiomeCalibration {
+    private BiomeCalibration() {}
+
+    public static final String FILE_NAME = "biome_calibration.csv";
+
+    // Regions measured before timing starts (JIT, climate compilation, biome caches).
+    private static final int WARMUP = 50;
+    private static final int LOG_EVERY = 500;
+
+    public static void run(ServerWorld world, ScanShape shape, Path outDir) {
+        Logger log = SpongeMonumentMod.LOGGER;
+
+        int samples = Math.max(WARMUP + 1, Integer.getInteger("sponge.calibrateSamples", 2000));
+        long sampleSeed = Long.getLong("sponge.sampleSeed", 1L);
+
+        int minRegionX = OceanMonumentCoords.regionOf(shape.minChunkX());
+        int minRegionZ = OceanMonumentCoords.regionOf(shape.minChunkZ());
+        int sideX = OceanMonumentCoords.regionOf(shape.maxChunkX()) - minRegionX + 1;
+        int sideZ = OceanMonumentCoords.regionOf(shape.maxChunkZ()) - minRegionZ + 1;
+
+        RegistryKey<Structure> monumentKey = RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
+        Structure monumentStructure = world.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE).getOrThrow(monumentKey).value();
+
+        log.info("[SpongeMonument] (calibrate) shape={} samples={} sampleSeed={}", shape.describe(), samples, sampleSeed);
+
+        BiomeTier[] tiers = BiomeTier.values();
+        int n = tiers.length;
+        long[] checkNanos = new long[n];
+        long[] analyzeNanos = new long[n];  // structure starts the tier would have asked for
+        int[] accepted = new int[n];
+        int[] falsePositives = new int[n];
+        int[] misses = new int[n];
+        int regions = 0;
+        int timedRegions = 0;
+        int monuments = 0;
+        boolean[] pass = new boolean[n];
+
+        SamplingEstimator.RegionPermutation order = new SamplingEstimator.RegionPermutation((long) sideX * sideZ, sampleSeed);
+        while (order.hasNext() && regions < samples) {
+            long r = order.next();
+            int rx = minRegionX + (int) (r % sideX);
+            int rz = minRegionZ + (int) (r / sideX);
+            if (!shape.mayHoldRegion(rx, rz)) continue;
+            long start = OceanMonumentCoords.placementForRegion(world.getSeed(), rx, rz);
+            int chunkX = PackedXZ.x(start);
+            int chunkZ = PackedXZ.z(start);
+            if (!shape.contains(chunkX, chunkZ)) continue;
+
+            regions++;
+            boolean timed = regions > WARMUP;
+            if (timed) timedRegions++;
+
+            // Rotate the order so no tier always runs first on a cold biome cache.
+            for (int k = 0; k < n; k++) {
+                int t = (k + regions) % n;
+                long t0 = System.nanoTime();
+                pass[t] = OceanMonumentCoords.passesBiomeCheck(world, chunkX, chunkZ, tiers[t]);
+                if (timed) checkNanos[t] += System.nanoTime() - t0;
+            }
+
+            long t0 = System.nanoTime();
+            boolean monument = MonumentLayoutAnalyzer.analyzeProfileFromStart(world, new ChunkPos(chunkX, chunkZ), monumentStructure) != null;
+            long startNanos = System.nanoTime() - t0;
+            if (monument) monuments++;
+
+            for (int t = 0; t < n; t++) {
+                if (pass[t]) {
+                    accepted[t]++;
+                    if (!monument) falsePositives[t]++;
+                    if (timed) analyzeNanos[t] += startNanos;
+                } else if (monument) {
+                    misses[t]++;
+                }
+            }
+
+            if (regions % LOG_EVERY == 0) {
+                log.info("[SpongeMonument] (calibrate) regions={} monuments={}", regions, monuments);
+            }
+        }
+
+        if (timedRegions == 0 || monuments == 0) {
+            log.warn("[SpongeMonument] (calibrate) Only {} region(s) with {} monument(s) in the area; widen it or raise sponge.calibrateSamples.",
+                    regions, monuments);
+            return;
+        }
+
+        int fewestMisses = Integer.MAX_VALUE;
+        for (int t = 0; t < n; t++) fewestMisses = Math.min(fewestMisses, misses[t]);
+        int best = -1;
+        double[] endToEndUs = new double[n];
+        for (int t = 0; t < n; t++) {
+            endToEndUs[t] = (checkNanos[t] + analyzeNanos[t]) / 1000.0 / timedRegions;
+            if (misses[t] == fewestMisses && (best < 0 || endToEndUs[t] < endToEndUs[best])) best = t;
+        }
+
+        Path out = outDir.resolve(FILE_NAME);
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("tier,regions,monuments,accepted,false_positives,misses,false_positive_rate,miss_rate,check_us,end_to_end_us_per_region,end_to_end_us_per_monument,recommended\n");
+            log.info("[SpongeMonument] ===== Biome tiers ({} regions, {} monuments) =====", regions, monuments);
+            for (int t = 0; t < n; t++) {
+                int found = accepted[t] - falsePositives[t];
+                double fpRate = accepted[t] == 0 ? 0.0 : falsePositives[t] / (double) accepted[t];
+                double missRate = misses[t] / (double) monuments;
+                double checkUs = checkNanos[t] / 1000.0 / timedRegions;
+                double perMonumentUs = found == 0 ? Double.NaN : endToEndUs[t] * regions / found;
+                w.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%.6f,%.6f,%.2f,%.2f,%.2f,%d%n",
+                        tiers[t].id(), regions, monuments, accepted[t], falsePositives[t], misses[t],
+                        fpRate, missRate, checkUs, endToEndUs[t], perMonumentUs, t == best ? 1 : 0));
+                log.info("[SpongeMonument] {} : false positives {}% ({}), misses {}% ({}), check {} us, end-to-end {} us/region{}",
+                        tiers[t].id(), pct(fpRate), falsePositives[t], pct(missRate), misses[t],
+                        String.format(Locale.ROOT, "%.1f", checkUs), String.format(Locale.ROOT, "%.1f", endToEndUs[t]),
+                        t == best ? "  <- recommended" : "");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing biome calibration: " + out.toAbsolutePath(), e);
+        }
+        log.info("[SpongeMonument] (calibrate) Recommended: -Dsponge.biomeTier={} ; wrote {}", tiers[best].id(), out.toAbsolutePath());
+    }
+
+    private static String pct(double p) {
+        return String.format(Locale.ROOT, "%.3f", p * 100.0);
+    }
+}
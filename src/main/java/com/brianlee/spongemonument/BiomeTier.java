@@ -0,0 +1,45 @@
+package com.brianlee.spongemonument;
+
+import java.util.Locale;
+
+/**
+ * How strictly the coords phase validates a candidate's biomes (-Dsponge.biomeTier).
+ *
+ * Every candidate that passes costs a structure-start generation in the analyze phase, and one that is not really
+ * a monument costs it for nothing; every biome sample costs the coords phase. The tiers trade the two off. The
+ * sample counts are per candidate, at quarter resolution:
+ * <ul>
+ *   <li>{@link #CENTER}: the middle-of-chunk deep-ocean sample only (1).</li>
+ *   <li>{@link #SPARSE}: that plus a 5x5 lattice over the 29-block footprint (26).</li>
+ *   <li>{@link #EXACT}: that plus the whole footprint, the Amidst/Chunkbase check (226).</li>
+ *   <li>{@link #VANILLA}: what OceanMonumentStructure itself tests, i.e. the footprint over every biome layer
+ *       within 29 blocks of sea level plus the structure's biome at the ocean-floor center (up to 3600 plus
+ *       one height query).</li>
+ * </ul>
+ * {@link BiomeCalibration} measures each tier's misses, false positives and cost for a seed.
+ */
+public enum BiomeTier {
+    CENTER,
+    SPARSE,
+    EXACT,
+    VANILLA;
+
+    private static final BiomeTier CONFIGURED = parse(System.getProperty("sponge.biomeTier", "exact"));
+
+    /** The tier selected by -Dsponge.biomeTier (default exact, the check every earlier run used). */
+    public static BiomeTier configured() {
+        return CONFIGURED;
+    }
+
+    public static BiomeTier parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sponge.biomeTier '" + name + "' (expected center|sparse|exact|vanilla)", e);
+        }
+    }
+
+    public String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
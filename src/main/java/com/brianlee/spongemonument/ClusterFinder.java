@@ -0,0 +1,246 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds groups of rich monuments close together (raid-base spots) over merged results (results.bin).
+ *
+ * A cluster is {@code clusterSize} monuments that are all within {@code clusterDistance} blocks of each other.
+ * For every monument the best cluster containing it (most total sponge rooms, then smallest span) is found by a
+ * small branch-and-bound over its grid neighbours, so the work per monument depends only on local density and
+ * the whole search is near-linear. Clusters are then ranked by total rooms and reported without sharing
+ * monuments, so the list shows distinct spots rather than variations of the same group.
+ *
+ * This is a heuristic, not an optimum: each search only considers the {@value #MAX_NEIGHBOURS} richest
+ * neighbours of its monument (a warning says how often that cap cut a search short), and the non-overlapping
+ * list is picked greedily, so a different choice of groups could occasionally total more rooms.
+ *
+ * -Dsponge.clusterSize (default 3), -Dsponge.clusterDistance (blocks, default 1500),
+ * -Dsponge.minRooms (per monument, default 1), -Dsponge.clusterMinRooms (per cluster, default 0),
+ * -Dsponge.clusterTop (clusters reported, default 50).
+ */
+public final class ClusterFinder {
+    private ClusterFinder() {}
+
+    public static final String FILE_NAME = "clusters.csv";
+
+    // Dense spots are searched among the richest neighbours only; keeps the branch-and-bound bounded.
+    private static final int MAX_NEIGHBOURS = 48;
+
+    /** One cluster: member indices, total rooms and the largest pairwise distance. */
+    record Cluster(int[] members, int totalRooms, double span) {}
+
+    public static void run(Path baseDir) {
+        Path bin = baseDir.resolve(ResultsBinary.FILE_NAME);
+        if (!Files.exists(bin)) {
+            throw new IllegalStateException(bin.getFileName() + " not found in " + baseDir.toAbsolutePath() + " (run runAll first)");
+        }
+
+        int size = SpongeCli.intProp("sponge.clusterSize", 3);
+        int distance = SpongeCli.intProp("sponge.clusterDistance", 1500);
+        int minRooms = SpongeCli.intProp("sponge.minRooms", 1);
+        int clusterMinRooms = SpongeCli.intProp("sponge.clusterMinRooms", 0);
+        int top = SpongeCli.intProp("sponge.clusterTop", 50);
+        if (size < 2) throw new IllegalArgumentException("-Dsponge.clusterSize must be >= 2");
+        if (distance <= 0) throw new IllegalArgumentException("-Dsponge.clusterDistance must be > 0");
+
+        long t0 = System.nanoTime();
+
+        // Only the filtered monuments are kept in memory.
+        int[][] xs = {new int[1024]};
+        int[][] zs = {new int[1024]};
+        int[][] rooms = {new int[1024]};
+        int[] n = {0};
+        ResultsBinary.forEach(bin, r -> {
+            if (r.spongeRooms() < minRooms) return;
+            if (n[0] == xs[0].length) {
+                xs[0] = Arrays.copyOf(xs[0], n[0] * 2);
+                zs[0] = Arrays.copyOf(zs[0], n[0] * 2);
+                rooms[0] = Arrays.copyOf(rooms[0], n[0] * 2);
+            }
+            xs[0][n[0]] = r.x();
+            zs[0][n[0]] = r.z();
+            rooms[0][n[0]] = r.spongeRooms();
+            n[0]++;
+        });
+
+        List<Cluster> clusters = find(xs[0], zs[0], rooms[0], n[0], size, distance, clusterMinRooms, top);
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        Path out = baseDir.resolve(FILE_NAME);
+        write(out, clusters, xs[0], zs[0], rooms[0]);
+
+        for (int i = 0; i < Math.min(10, clusters.size()); i++) {
+            Cluster c = clusters.get(i);
+            System.out.println("[SpongeMonument] (cluster) #" + (i + 1) + " total_rooms=" + c.totalRooms()
+                    + " center=(" + centerX(c, xs[0]) + ", " + centerZ(c, zs[0]) + ") span=" + Math.round(c.span()) + " blocks");
+        }
+        System.out.println("[SpongeMonument] (cluster) " + clusters.size() + " cluster(s) of " + size + " monuments within " + distance
+                + " blocks from " + n[0] + " monument(s) with >= " + minRooms + " rooms in " + ms + " ms -> " + out.toAbsolutePath());
+    }
+
+    /**
+     * Best cluster per monument, ranked by total rooms (then span) and reduced to at most {@code top}
+     * clusters that share no monument.
+     */
+    static List<Cluster> find(int[] xs, int[] zs, int[] rooms, int n, int size, int distance, int minTotal, int top) {
+        int shift = Math.max(PointGrid.MIN_CELL_SHIFT, 32 - Integer.numberOfLeadingZeros(distance - 1));
+        PointGrid grid = new PointGrid(xs, zs, n, shift);
+        long d2 = (long) distance * distance;
+
+        List<Cluster> best = new ArrayList<>();
+        Search search = new Search(xs, zs, rooms, size, d2);
+        int[] nb = new int[16];
+        int capped = 0;
+        for (int a = 0; a < n; a++) {
+            int[] count = {0};
+            int[][] buf = {nb};
+            final int anchor = a;
+            grid.forEachWithin(xs[a], zs[a], distance, i -> {
+                if (i == anchor) return;
+                if (count[0] == buf[0].length) buf[0] = Arrays.copyOf(buf[0], count[0] * 2);
+                buf[0][count[0]++] = i;
+            });
+            nb = buf[0];
+            if (count[0] < size - 1) continue;
+            if (count[0] > MAX_NEIGHBOURS) capped++;
+
+            Cluster c = search.bestContaining(a, nb, count[0]);
+            if (c != null && c.totalRooms() >= minTotal) best.add(c);
+        }
+
+        if (capped > 0) {
+            System.err.println("[SpongeMonument] (cluster) Warning: " + capped + " monument(s) had more than " + MAX_NEIGHBOURS
+                    + " neighbours within " + distance + " blocks; only the richest " + MAX_NEIGHBOURS + " were searched, so clusters there may not be the best possible");
+        }
+
+        best.sort((p, q) -> p.totalRooms() != q.totalRooms()
+                ? Integer.compare(q.totalRooms(), p.totalRooms())
+                : Double.compare(p.span(), q.span()));
+
+        boolean[] taken = new boolean[n];
+        List<Cluster> out = new ArrayList<>();
+        for (Cluster c : best) {
+            if (out.size() >= top) break;
+            boolean free = true;
+            for (int m : c.members()) free &= !taken[m];
+            if (!free) continue;
+            for (int m : c.members()) taken[m] = true;
+            out.add(c);
+        }
+        return out;
+    }
+
+    /** Branch-and-bound over one anchor's neighbours, richest first. Reused across anchors. */
+    private static final class Search {
+        private final int[] xs, zs, rooms;
+        private final int size;
+        private final long d2;
+        private final int[] chosen;
+        private final int[] cand = new int[MAX_NEIGHBOURS];
+        private int candCount;
+        private int[] bestMembers;
+        private int bestTotal;
+        private long bestSpan2;
+
+        Search(int[] xs, int[] zs, int[] rooms, int size, long d2) {
+            this.xs = xs;
+            this.zs = zs;
+            this.rooms = rooms;
+            this.size = size;
+            this.d2 = d2;
+            this.chosen = new int[size];
+        }
+
+        Cluster bestContaining(int anchor, int[] nb, int count) {
+            // Richest neighbours first (bounded insertion sort), so the bound (sum of the next richest) cuts early.
+            candCount = 0;
+            for (int i = 0; i < count; i++) {
+                int c = nb[i];
+                if (candCount == MAX_NEIGHBOURS && rooms[cand[candCount - 1]] >= rooms[c]) continue;
+                int p = candCount < MAX_NEIGHBOURS ? candCount++ : candCount - 1;
+                while (p > 0 && rooms[cand[p - 1]] < rooms[c]) {
+                    cand[p] = cand[p - 1];
+                    p--;
+                }
+                cand[p] = c;
+            }
+
+            bestMembers = null;
+            bestTotal = -1;
+            bestSpan2 = Long.MAX_VALUE;
+            chosen[0] = anchor;
+            extend(1, 0, rooms[anchor], 0L);
+            if (bestMembers == null) return null;
+            return new Cluster(bestMembers, bestTotal, Math.sqrt((double) bestSpan2));
+        }
+
+        private void extend(int depth, int from, int total, long span2) {
+            if (depth == size) {
+                if (total > bestTotal || (total == bestTotal && span2 < bestSpan2)) {
+                    bestTotal = total;
+                    bestSpan2 = span2;
+                    bestMembers = Arrays.copyOf(chosen, size);
+                }
+                return;
+            }
+            int need = size - depth;
+            for (int t = from; t + need <= candCount; t++) {
+                // Upper bound: this candidate plus the next richest ones.
+                int bound = total;
+                for (int u = t; u < t + need; u++) bound += rooms[cand[u]];
+                if (bound < bestTotal) return;
+
+                int c = cand[t];
+                long s2 = span2;
+                boolean ok = true;
+                for (int i = 0; i < depth && ok; i++) {
+                    long dx = xs[c] - xs[chosen[i]];
+                    long dz = zs[c] - zs[chosen[i]];
+                    long dd = dx * dx + dz * dz;
+                    ok = dd <= d2;
+                    s2 = Math.max(s2, dd);
+                }
+                if (!ok) continue;
+                chosen[depth] = c;
+                extend(depth + 1, t + 1, total + rooms[c], s2);
+            }
+        }
+    }
+
+    private static int centerX(Cluster c, int[] xs) {
+        long s = 0;
+        for (int m : c.members()) s += xs[m];
+        return (int) Math.round((double) s / c.members().length);
+    }
+
+    private static int centerZ(Cluster c, int[] zs) {
+        long s = 0;
+        for (int m : c.members()) s += zs[m];
+        return (int) Math.round((double) s / c.members().length);
+    }
+
+    private static void write(Path out, List<Cluster> clusters, int[] xs, int[] zs, int[] rooms) {
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("rank,total_rooms,center_x,center_z,span_blocks,members\n");
+            for (int i = 0; i < clusters.size(); i++) {
+                Cluster c = clusters.get(i);
+                StringBuilder members = new StringBuilder();
+                for (int m : c.members()) {
+                    if (members.length() > 0) members.append(' ');
+                    members.append(xs[m]).append(':').append(zs[m]).append(':').append(rooms[m]);
+                }
+                w.write((i + 1) + "," + c.totalRooms() + "," + centerX(c, xs) + "," + centerZ(c, zs) + ","
+                        + Math.round(c.span()) + "," + members + "\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing clusters: " + out.toAbsolutePath(), e);
+        }
+    }
+}
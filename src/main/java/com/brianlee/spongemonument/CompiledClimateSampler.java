@@ -0,0 +1,457 @@
+package com.brianlee.spongemonument;
+
+import net.minecraft.util.dynamic.CodecHolder;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.biome.source.util.MultiNoiseUtil;
+import net.minecraft.world.gen.densityfunction.DensityFunction;
+import net.minecraft.world.gen.densityfunction.DensityFunctionTypes;
+import net.minecraft.world.gen.noise.NoiseConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Flat, specialised evaluator for the six climate density functions used by the monument biome checks.
+ *
+ * The generic {@link MultiNoiseUtil.MultiNoiseSampler} walks a tree of DensityFunction objects per sample, and
+ * the depth spline re-samples continentalness/erosion/ridges that the other climate values already computed.
+ * The biome checks only ever sample at quart Y 15, so at first use the seed's functions are compiled into one
+ * instruction array:
+ *  - Y-only nodes (y_clamped_gradient and arithmetic on constants) are folded to constants at block Y 60;
+ *  - identical sub-expressions become one instruction (hash-consed on opcode, operands and noise);
+ *  - noise, shift, clamp, unary, binary, linear and range-choice nodes run as opcodes on a register array;
+ *  - anything else (splines, unknown types) runs as a CALL on the vanilla node, rebuilt so its inputs read
+ *    the registers, which keeps the spline maths exactly vanilla's while still sharing its inputs.
+ *
+ * The compiled form is checked against the generic sampler on {@code sponge.climateVerifyPoints} random
+ * positions before use; any difference (or a compile failure) falls back to the generic sampler.
+ * {@code -Dsponge.climate=vanilla} disables it.
+ */
+public final class CompiledClimateSampler {
+    private CompiledClimateSampler() {}
+
+    /** Block Y of every biome-check sample (quart 15). */
+    static final int FOLD_Y = 15 << 2;
+
+    private static final boolean ENABLED = !System.getProperty("sponge.climate", "compiled").trim().equalsIgnoreCase("vanilla");
+    private static final int VERIFY_POINTS = Integer.getInteger("sponge.climateVerifyPoints", 4096);
+
+    private static NoiseConfig cachedNoise;
+    private static MultiNoiseUtil.MultiNoiseSampler cachedSampler;
+
+    /** The sampler to hand to {@code BiomeSource.getBiome}: compiled when verified, otherwise the generic one. */
+    public static synchronized MultiNoiseUtil.MultiNoiseSampler of(NoiseConfig noise) {
+        if (noise != cachedNoise) {
+            cachedSampler = build(noise);
+            cachedNoise = noise;
+        }
+        return cachedSampler;
+    }
+
+    private static MultiNoiseUtil.MultiNoiseSampler build(NoiseConfig noise) {
+        MultiNoiseUtil.MultiNoiseSampler generic = noise.getMultiNoiseSampler();
+        if (!ENABLED) return generic;
+
+        DensityFunction[] roots = {
+                generic.temperature(), generic.humidity(), generic.continentalness(),
+                generic.erosion(), generic.depth(), generic.weirdness()
+        };
+        Program program;
+        try {
+            program = Program.compile(roots);
+        } catch (RuntimeException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (climate) Compile failed; using the generic sampler", e);
+            return generic;
+        }
+
+        // Exactness check on random quart positions across the whole world.
+        Random random = new Random(0x5350474EL);
+        Frame frame = program.newFrame();
+        long compiledNanos = 0, genericNanos = 0;
+        for (int i = 0; i < VERIFY_POINTS; i++) {
+            int x = (random.nextInt(15_000_000) - 7_500_000) << 2;
+            int z = (random.nextInt(15_000_000) - 7_500_000) << 2;
+
+            long t0 = System.nanoTime();
+            program.run(frame, x, z);
+            long t1 = System.nanoTime();
+            DensityFunction.UnblendedNoisePos pos = new DensityFunction.UnblendedNoisePos(x, FOLD_Y, z);
+            double[] expected = new double[roots.length];
+            for (int k = 0; k < roots.length; k++) expected[k] = roots[k].sample(pos);
+            long t2 = System.nanoTime();
+            compiledNanos += t1 - t0;
+            genericNanos += t2 - t1;
+
+            for (int k = 0; k < roots.length; k++) {
+                double got = frame.regs[program.outputs[k]];
+                if (!(got == expected[k] || (Double.isNaN(got) && Double.isNaN(expected[k])))) {
+                    SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (climate) Compiled value {} differs at x={} z={} ({} vs {}); using the generic sampler",
+                            k, x, z, got, expected[k]);
+                    return generic;
+                }
+            }
+        }
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (climate) Compiled {} climate instructions ({} calls, {} constants) from {} visited nodes; verified on {} points, {}x faster than generic",
+                program.size(), program.calls(), program.constants, program.visited, VERIFY_POINTS,
+                String.format("%.2f", genericNanos / (double) Math.max(1, compiledNanos)));
+
+        DensityFunction[] outputs = new DensityFunction[roots.length];
+        ThreadLocal<Frame> frames = ThreadLocal.withInitial(program::newFrame);
+        for (int k = 0; k < roots.length; k++) {
+            outputs[k] = new Output(program, frames, k, roots[k]);
+        }
+        return new MultiNoiseUtil.MultiNoiseSampler(outputs[0], outputs[1], outputs[2], outputs[3], outputs[4], outputs[5],
+                generic.spawnTarget());
+    }
+
+    /** Evaluation state of one thread: the register file plus the position it currently holds. */
+    static final class Frame implements DensityFunction.NoisePos {
+        final double[] regs;
+        int x, z;
+        boolean valid;
+
+        Frame(double[] init) {
+            this.regs = init.clone();
+        }
+
+        @Override
+        public int blockX() {
+            return x;
+        }
+
+        @Override
+        public int blockY() {
+            return FOLD_Y;
+        }
+
+        @Override
+        public int blockZ() {
+            return z;
+        }
+    }
+
+    private static final int OP_NOISE = 0, OP_SHIFTED_NOISE = 1, OP_SHIFT_A = 2, OP_SHIFT_B = 3, OP_SHIFT = 4,
+            OP_CLAMP = 5, OP_ABS = 6, OP_SQUARE = 7, OP_CUBE = 8, OP_HALF_NEGATIVE = 9, OP_QUARTER_NEGATIVE = 10,
+            OP_SQUEEZE = 11, OP_ADD = 12, OP_MUL = 13, OP_MIN = 14, OP_MAX = 15, OP_LIN_ADD = 16, OP_LIN_MUL = 17,
+            OP_RANGE = 18, OP_CALL = 19;
+
+    /** Hash-consing key: two instructions with equal keys compute the same value. */
+    private record Key(int op, int a, int b, int c, double k0, double k1, Object ref) {}
+
+    static final class Program {
+        // One entry per instruction; the instruction writes register dst[i].
+        private int[] op = new int[64], dst = new int[64], a = new int[64], b = new int[64], c = new int[64];
+        private double[] k0 = new double[64], k1 = new double[64];
+        private Object[] ref = new Object[64];
+        private int n;
+
+        private final List<Double> init = new ArrayList<>();
+        private final Map<Key, Integer> consed = new HashMap<>();
+        private final Map<Double, Integer> constantSlots = new HashMap<>();
+        private double[] initRegs;
+        int[] outputs;
+        int constants, visited;
+
+        static Program compile(DensityFunction[] roots) {
+            Program p = new Program();
+            Compiler visitor = p.new Compiler();
+            p.outputs = new int[roots.length];
+            for (int k = 0; k < roots.length; k++) {
+                p.outputs[k] = p.slotOf(roots[k].apply(visitor));
+            }
+            p.initRegs = new double[p.init.size()];
+            for (int i = 0; i < p.initRegs.length; i++) p.initRegs[i] = p.init.get(i);
+            return p;
+        }
+
+        int size() {
+            return n;
+        }
+
+        int calls() {
+            int count = 0;
+            for (int i = 0; i < n; i++) if (op[i] == OP_CALL) count++;
+            return count;
+        }
+
+        Frame newFrame() {
+            return new Frame(initRegs);
+        }
+
+        void run(Frame f, int blockX, int blockZ) {
+            f.x = blockX;
+            f.z = blockZ;
+            final double[] r = f.regs;
+            final double x = blockX, y = FOLD_Y, z = blockZ;
+            for (int i = 0; i < n; i++) {
+                double v;
+                switch (op[i]) {
+                    case OP_NOISE -> v = ((DensityFunction.Noise) ref[i]).sample(x * k0[i], y * k1[i], z * k0[i]);
+                    case OP_SHIFTED_NOISE -> v = ((DensityFunction.Noise) ref[i]).sample(
+                            x * k0[i] + r[a[i]], y * k1[i] + r[b[i]], z * k0[i] + r[c[i]]);
+                    case OP_SHIFT_A -> v = ((DensityFunction.Noise) ref[i]).sample(x * 0.25, 0.0, z * 0.25) * 4.0;
+                    case OP_SHIFT_B -> v = ((DensityFunction.Noise) ref[i]).sample(z * 0.25, x * 0.25, 0.0) * 4.0;
+                    case OP_SHIFT -> v = ((DensityFunction.Noise) ref[i]).sample(x * 0.25, y * 0.25, z * 0.25) * 4.0;
+                    case OP_CLAMP -> v = MathHelper.clamp(r[a[i]], k0[i], k1[i]);
+                    case OP_ABS -> v = Math.abs(r[a[i]]);
+                    case OP_SQUARE -> {
+                        double t = r[a[i]];
+                        v = t * t;
+                    }
+                    case OP_CUBE -> {
+                        double t = r[a[i]];
+                        v = t * t * t;
+                    }
+                    case OP_HALF_NEGATIVE -> {
+                        double t = r[a[i]];
+                        v = t > 0.0 ? t : t * 0.5;
+                    }
+                    case OP_QUARTER_NEGATIVE -> {
+                        double t = r[a[i]];
+                        v = t > 0.0 ? t : t * 0.25;
+                    }
+                    case OP_SQUEEZE -> {
+                        double t = MathHelper.clamp(r[a[i]], -1.0, 1.0);
+                        v = t / 2.0 - t * t * t / 24.0;
+                    }
+                    case OP_ADD -> v = r[a[i]] + r[b[i]];
+                    // Vanilla short-circuits MUL/MIN/MAX on the first argument; the results below match it.
+                    case OP_MUL -> {
+                        double t = r[a[i]];
+                        v = t == 0.0 ? 0.0 : t * r[b[i]];
+                    }
+                    case OP_MIN -> {
+                        double t = r[a[i]];
+                        v = t < k0[i] ? t : Math.min(t, r[b[i]]);
+                    }
+                    case OP_MAX -> {
+                        double t = r[a[i]];
+                        v = t > k1[i] ? t : Math.max(t, r[b[i]]);
+                    }
+                    case OP_LIN_ADD -> v = r[a[i]] + k0[i];
+                    case OP_LIN_MUL -> v = r[a[i]] * k0[i];
+                    case OP_RANGE -> {
+                        double t = r[a[i]];
+                        v = t >= k0[i] && t < k1[i] ? r[b[i]] : r[c[i]];
+                    }
+                    default -> v = ((DensityFunction) ref[i]).sample(f);
+                }
+                r[dst[i]] = v;
+            }
+            f.valid = true;
+        }
+
+        /** Register holding a compiled node's value (constants get a pre-filled register). */
+        private int slotOf(DensityFunction df) {
+            if (df instanceof Slot s) return s.index();
+            if (df instanceof DensityFunctionTypes.Constant constant) return constantSlot(constant.value());
+            // A root the visitor left as a bare vanilla node.
+            return emit(OP_CALL, 0, 0, 0, 0, 0, df);
+        }
+
+        private int constantSlot(double value) {
+            Integer existing = constantSlots.get(value);
+            if (existing != null) return existing;
+            int slot = init.size();
+            init.add(value);
+            constantSlots.put(value, slot);
+            constants++;
+            return slot;
+        }
+
+        private int emit(int opcode, int ra, int rb, int rc, double c0, double c1, Object reference) {
+            Key key = new Key(opcode, ra, rb, rc, c0, c1, reference);
+            Integer existing = consed.get(key);
+            if (existing != null) return existing;
+            if (n == op.length) grow();
+            int slot = init.size();
+            init.add(Double.NaN);
+            op[n] = opcode;
+            dst[n] = slot;
+            a[n] = ra;
+            b[n] = rb;
+            c[n] = rc;
+            k0[n] = c0;
+            k1[n] = c1;
+            ref[n] = reference;
+            n++;
+            consed.put(key, slot);
+            return slot;
+        }
+
+        private void grow() {
+            int cap = op.length * 2;
+            op = Arrays.copyOf(op, cap);
+            dst = Arrays.copyOf(dst, cap);
+            a = Arrays.copyOf(a, cap);
+            b = Arrays.copyOf(b, cap);
+            c = Arrays.copyOf(c, cap);
+            k0 = Arrays.copyOf(k0, cap);
+            k1 = Arrays.copyOf(k1, cap);
+            ref = Arrays.copyOf(ref, cap);
+        }
+
+        /**
+         * Bottom-up rewrite (vanilla applies the visitor to children first): every node arrives with its
+         * inputs already replaced by {@link Slot}s or constants and leaves as a Slot or a folded constant.
+         */
+        private final class Compiler implements DensityFunction.DensityFunctionVisitor {
+            @Override
+            public DensityFunction apply(DensityFunction df) {
+                visited++;
+                if (df instanceof Slot || df instanceof DensityFunctionTypes.Constant) return df;
+
+                // Markers and registry references just pass their (already compiled) input through.
+                if (df instanceof DensityFunctionTypes.RegistryEntryHolder holder) return holder.function().value();
+                if (df instanceof DensityFunctionTypes.Wrapping wrapping) return wrapping.wrapped();
+
+                if (df instanceof DensityFunctionTypes.YClampedGradient || allInputsConstant(df)) {
+                    return new DensityFunctionTypes.Constant(df.sample(new DensityFunction.UnblendedNoisePos(0, FOLD_Y, 0)));
+                }
+
+                int slot;
+                if (df instanceof DensityFunctionTypes.Noise noise) {
+                    slot = emit(OP_NOISE, 0, 0, 0, noise.xzScale(), noise.yScale(), noise.noise());
+                } else if (df instanceof DensityFunctionTypes.ShiftedNoise s) {
+                    slot = emit(OP_SHIFTED_NOISE, slotOf(s.shiftX()), slotOf(s.shiftY()), slotOf(s.shiftZ()),
+                            s.xzScale(), s.yScale(), s.noise());
+                } else if (df instanceof DensityFunctionTypes.ShiftA s) {
+                    slot = emit(OP_SHIFT_A, 0, 0, 0, 0, 0, s.offsetNoise());
+                } else if (df instanceof DensityFunctionTypes.ShiftB s) {
+                    slot = emit(OP_SHIFT_B, 0, 0, 0, 0, 0, s.offsetNoise());
+                } else if (df instanceof DensityFunctionTypes.Shift s) {
+                    slot = emit(OP_SHIFT, 0, 0, 0, 0, 0, s.offsetNoise());
+                } else if (df instanceof DensityFunctionTypes.Clamp clamp) {
+                    slot = emit(OP_CLAMP, slotOf(clamp.input()), 0, 0, clamp.minValue(), clamp.maxValue(), null);
+                } else if (df instanceof DensityFunctionTypes.UnaryOperation unary && unaryOp(unary) >= 0) {
+                    slot = emit(unaryOp(unary), slotOf(unary.input()), 0, 0, 0, 0, null);
+                } else if (df instanceof DensityFunctionTypes.LinearOperation linear) {
+                    int opcode = linear.specificType() == DensityFunctionTypes.LinearOperation.SpecificType.ADD ? OP_LIN_ADD : OP_LIN_MUL;
+                    slot = emit(opcode, slotOf(linear.input()), 0, 0, linear.argument(), 0, null);
+                } else if (df instanceof DensityFunctionTypes.BinaryOperation binary && binaryOp(binary) >= 0) {
+                    int opcode = binaryOp(binary);
+                    DensityFunction second = binary.argument2();
+                    slot = emit(opcode, slotOf(binary.argument1()), slotOf(second), 0,
+                            second.minValue(), second.maxValue(), null);
+                } else if (df instanceof DensityFunctionTypes.RangeChoice range) {
+                    slot = emit(OP_RANGE, slotOf(range.input()), slotOf(range.whenInRange()), slotOf(range.whenOutOfRange()),
+                            range.minInclusive(), range.maxExclusive(), null);
+                } else {
+                    // Splines and anything unknown: vanilla code on a node whose inputs now read registers.
+                    slot = emit(OP_CALL, 0, 0, 0, 0, 0, df);
+                }
+                return new Slot(slot, df.minValue(), df.maxValue(), df);
+            }
+
+            private boolean allInputsConstant(DensityFunction df) {
+                if (df instanceof DensityFunctionTypes.Clamp clamp) return isConstant(clamp.input());
+                if (df instanceof DensityFunctionTypes.UnaryOperation unary) return isConstant(unary.input());
+                if (df instanceof DensityFunctionTypes.LinearOperation linear) return isConstant(linear.input());
+                if (df instanceof DensityFunctionTypes.BinaryOperation binary) {
+                    return isConstant(binary.argument1()) && isConstant(binary.argument2());
+                }
+                if (df instanceof DensityFunctionTypes.RangeChoice range) {
+                    return isConstant(range.input()) && isConstant(range.whenInRange()) && isConstant(range.whenOutOfRange());
+                }
+                return false;
+            }
+
+            private boolean isConstant(DensityFunction df) {
+                return df instanceof DensityFunctionTypes.Constant;
+            }
+
+            private int binaryOp(DensityFunctionTypes.BinaryOperation binary) {
+                return switch (binary.type()) {
+                    case ADD -> OP_ADD;
+                    case MUL -> OP_MUL;
+                    case MIN -> OP_MIN;
+                    case MAX -> OP_MAX;
+                    default -> -1;
+                };
+            }
+
+            private int unaryOp(DensityFunctionTypes.UnaryOperation unary) {
+                return switch (unary.type()) {
+                    case ABS -> OP_ABS;
+                    case SQUARE -> OP_SQUARE;
+                    case CUBE -> OP_CUBE;
+                    case HALF_NEGATIVE -> OP_HALF_NEGATIVE;
+                    case QUARTER_NEGATIVE -> OP_QUARTER_NEGATIVE;
+                    case SQUEEZE -> OP_SQUEEZE;
+                    default -> -1; // newer unary types run as CALLs
+                };
+            }
+        }
+    }
+
+    /**
+     * A compiled node's register, standing in for the node inside rebuilt vanilla parents (CALL instructions).
+     * Keeps the original bounds, which vanilla uses for MIN/MAX short-circuits and when rebuilding operations,
+     * and the node it replaced, whose codec stands in for the register's.
+     */
+    private record Slot(int index, double minValue, double maxValue, DensityFunction original) implements DensityFunction {
+        @Override
+        public double sample(NoisePos pos) {
+            return ((Frame) pos).regs[index];
+        }
+
+        @Override
+        public void fill(double[] densities, EachApplier applier) {
+            applier.fill(densities, this);
+        }
+
+        @Override
+        public DensityFunction apply(DensityFunctionVisitor visitor) {
+            return visitor.apply(this);
+        }
+
+        @Override
+        public CodecHolder<? extends DensityFunction> getCodecHolder() {
+            return original.getCodecHolder();
+        }
+    }
+
+    /**
+     * One climate value of the compiled sampler. The sampler reads all six at the same position in turn, so the
+     * first read runs the program and the rest are register loads. Positions off the folded Y use vanilla.
+     */
+    private record Output(Program program, ThreadLocal<Frame> frames, int index, DensityFunction original) implements DensityFunction {
+        @Override
+        public double sample(NoisePos pos) {
+            if (pos.blockY() != FOLD_Y) return original.sample(pos);
+            Frame f = frames.get();
+            int x = pos.blockX(), z = pos.blockZ();
+            if (!f.valid || f.x != x || f.z != z) program.run(f, x, z);
+            return f.regs[program.outputs[index]];
+        }
+
+        @Override
+        public void fill(double[] densities, EachApplier applier) {
+            applier.fill(densities, this);
+        }
+
+        @Override
+        public DensityFunction apply(DensityFunctionVisitor visitor) {
+            return visitor.apply(this);
+        }
+
+        @Override
+        public double minValue() {
+            return original.minValue();
+        }
+
+        @Override
+        public double maxValue() {
+            return original.maxValue();
+        }
+
+        @Override
+        public CodecHolder<? extends DensityFunction> getCodecHolder() {
+            return original.getCodecHolder();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.brianlee.spongemonument;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Renders results.idx into slippy-map PNG tiles ({@code heatmap/<z>/<x>/<y>.png}) coloured by sponge rooms per area.
+ *
+ * Tiles use a fixed world frame so tile URLs are stable across datasets: zoom 0 is one 256px tile spanning
+ * {@link #WORLD_EXTENT} blocks centred on (0, 0), +x is east and tile y grows southwards (+z). Each zoom level
+ * only renders children of non-empty tiles from the level above, and each tile reads just its own box from
+ * the memory-mapped index, so nothing is loaded whole. Tiles are rendered in parallel with a fixed window of
+ * futures in flight, and between levels only the packed coordinates of non-empty tiles are kept.
+ *
+ * Colour is sponge rooms per placement region (512 x 512 blocks): pixels smaller than a region are binned
+ * per region, so high zoom levels show the region grid rather than single dots.
+ *
+ * -Dsponge.heatmapMinZoom (default 0), -Dsponge.heatmapMaxZoom (default 12, 64 blocks per pixel),
+ * -Dsponge.heatmapScale (rooms per region drawn at full heat, default 4), -Dsponge.minRooms (default 0),
+ * -Dsponge.heatmapThreads (default: available processors).
+ */
+public final class HeatmapRenderer {
+    private HeatmapRenderer() {}
+
+    public static final String DIR_NAME = "heatmap";
+
+    static final int TILE_SIZE = 256;
+    private static final int TILE_SHIFT = 8;
+    // 2^26 blocks covers the whole +/-30M world border.
+    static final int WORLD_SHIFT = 26;
+    static final long WORLD_EXTENT = 1L << WORLD_SHIFT;
+    private static final int REGION_SHIFT = 9; // 512-block placement regions
+    private static final int MAX_ZOOM = WORLD_SHIFT - REGION_SHIFT; // tile = one region
+
+    public static void run(Path baseDir) {
+        Path idxFile = baseDir.resolve(MonumentIndex.FILE_NAME);
+        if (!Files.exists(idxFile)) {
+            throw new IllegalStateException(idxFile.getFileName() + " not found in " + baseDir.toAbsolutePath() + " (run runAll first)");
+        }
+
+        int minZoom = SpongeCli.intProp("sponge.heatmapMinZoom", 0);
+        int maxZoom = SpongeCli.intProp("sponge.heatmapMaxZoom", 12);
+        int minRooms = SpongeCli.intProp("sponge.minRooms", 0);
+        int threads = SpongeCli.intProp("sponge.heatmapThreads", Runtime.getRuntime().availableProcessors());
+        double scale = Double.parseDouble(System.getProperty("sponge.heatmapScale", "4"));
+        if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom) {
+            throw new IllegalArgumentException("Zoom range must satisfy 0 <= heatmapMinZoom <= heatmapMaxZoom <= " + MAX_ZOOM);
+        }
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("-Dsponge.heatmapScale must be > 0");
+        }
+
+        MonumentIndex index = MonumentIndex.load(idxFile);
+        Path outDir = baseDir.resolve(DIR_NAME);
+        int[] palette = palette();
+
+        long t0 = System.nanoTime();
+        AtomicLong written = new AtomicLong();
+        int window = Math.max(1, threads) * 4;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            // Zoom 0 always has the single tile; deeper levels only subdivide tiles that had data.
+            LongList parents = null;
+            for (int zoom = 0; zoom <= maxZoom; zoom++) {
+                final int zf = zoom;
+                final boolean write = zoom >= minZoom;
+                // The deepest level has no children to find, so its non-empty tiles are not collected.
+                LongList nonEmpty = zoom < maxZoom ? new LongList() : null;
+                ArrayDeque<Future<Long>> inFlight = new ArrayDeque<>(window);
+                long count = parents == null ? 1 : parents.size() * 4L;
+                for (long i = 0; i < count; i++) {
+                    long tile = parents == null ? PackedXZ.pack(0, 0) : child(parents.get((int) (i >> 2)), (int) (i & 3));
+                    if (inFlight.size() >= window) collect(await(inFlight.poll()), nonEmpty);
+                    inFlight.add(pool.submit(() -> {
+                        boolean hasData = renderTile(index, zf, PackedXZ.x(tile), PackedXZ.z(tile), minRooms, scale, palette, write ? outDir : null);
+                        if (hasData && write) written.incrementAndGet();
+                        return hasData ? tile : null;
+                    }));
+                }
+                while (!inFlight.isEmpty()) collect(await(inFlight.poll()), nonEmpty);
+                if (nonEmpty == null || nonEmpty.isEmpty()) break;
+                parents = nonEmpty;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        System.out.println("[SpongeMonument] (heatmap) Wrote " + written.get() + " tile(s) for zoom " + minZoom + "-" + maxZoom
+                + " to " + outDir.toAbsolutePath() + " in " + ms + " ms");
+    }
+
+    /**
+     * Aggregates one tile from the index and writes it when {@code outDir} is non-null.
+     * Returns whether the tile contains any monument.
+     */
+    static boolean renderTile(MonumentIndex index, int zoom, int tx, int ty, int minRooms, double scale, int[] palette, Path outDir) {
+        int tileShift = WORLD_SHIFT - zoom;
+        long half = WORLD_EXTENT / 2;
+        long minX = -half + ((long) tx << tileShift);
+        long minZ = -half + ((long) ty << tileShift);
+        long maxX = minX + (1L << tileShift) - 1;
+        long maxZ = minZ + (1L << tileShift) - 1;
+
+        // Clip to the index bounds first: most of the world frame is empty.
+        if (maxX < index.minX() || minX > index.maxX() || maxZ < index.minZ() || minZ > index.maxZ()) {
+            return false;
+        }
+
+        int pixelShift = tileShift - TILE_SHIFT;
+        int binShift = Math.max(pixelShift, REGION_SHIFT);
+        int binsPerSide = 1 << (tileShift - binShift);
+        int[] bins = new int[binsPerSide * binsPerSide];
+        boolean[] any = new boolean[1];
+
+        int x0 = (int) Math.max(minX, Integer.MIN_VALUE);
+        int z0 = (int) Math.max(minZ, Integer.MIN_VALUE);
+        int x1 = (int) Math.min(maxX, Integer.MAX_VALUE);
+        int z1 = (int) Math.min(maxZ, Integer.MAX_VALUE);
+        index.forEachInBox(x0, z0, x1, z1, minRooms, (x, z, rooms) -> {
+            int bx = (int) ((x - minX) >> binShift);
+            int bz = (int) ((z - minZ) >> binShift);
+            bins[bz * binsPerSide + bx] += rooms;
+            any[0] = true;
+        });
+        if (!any[0] || outDir == null) {
+            return any[0];
+        }
+
+        // Rooms per region: a bin covers 4^(binShift - REGION_SHIFT) regions.
+        double perRegion = 1.0 / (1L << (2 * (binShift - REGION_SHIFT)));
+        int pixelsPerBin = 1 << (binShift - pixelShift);
+        int[] argb = new int[TILE_SIZE * TILE_SIZE];
+        for (int py = 0; py < TILE_SIZE; py++) {
+            int rowBase = (py / pixelsPerBin) * binsPerSide;
+            for (int px = 0; px < TILE_SIZE; px++) {
+                int rooms = bins[rowBase + px / pixelsPerBin];
+                if (rooms == 0) continue; // transparent
+                double t = Math.min(1.0, Math.sqrt(rooms * perRegion / scale));
+                argb[py * TILE_SIZE + px] = palette[(int) Math.round(t * (palette.length - 1))];
+            }
+        }
+
+        BufferedImage img = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        img.setRGB(0, 0, TILE_SIZE, TILE_SIZE, argb, 0, TILE_SIZE);
+        Path file = outDir.resolve(Integer.toString(zoom)).resolve(Integer.toString(tx)).resolve(ty + ".png");
+        try {
+            Files.createDirectories(file.getParent());
+            ImageIO.write(img, "png", file.toFile());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing tile: " + file.toAbsolutePath(), e);
+        }
+        return true;
+    }
+
+    /** Child {@code quadrant} (0-3, row-major) of a packed tile at the next zoom level. */
+    private static long child(long tile, int quadrant) {
+        return PackedXZ.pack(PackedXZ.x(tile) * 2 + (quadrant & 1), PackedXZ.z(tile) * 2 + (quadrant >> 1));
+    }
+
+    private static void collect(Long tile, LongList nonEmpty) {
+        if (tile != null && nonEmpty != null) nonEmpty.add(tile);
+    }
+
+    /** 256-step ramp: translucent blue -> cyan -> yellow -> opaque red. */
+    static int[] palette() {
+        int[][] stops = {
+                {0x90, 0x20, 0x40, 0xFF},
+                {0xB0, 0x00, 0xE0, 0xFF},
+                {0xD0, 0xFF, 0xE0, 0x00},
+                {0xF0, 0xFF, 0x00, 0x00},
+        };
+        int[] out = new int[256];
+        for (int i = 0; i < out.length; i++) {
+            double pos = i / 255.0 * (stops.length - 1);
+            int s = Math.min(stops.length - 2, (int) pos);
+            double f = pos - s;
+            int argb = 0;
+            for (int c = 0; c < 4; c++) {
+                int v = (int) Math.round(stops[s][c] + (stops[s + 1][c] - stops[s][c]) * f);
+                argb = (argb << 8) | v;
+            }
+            out[i] = argb;
+        }
+        return out;
+    }
+
+    private static <T> T await(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering heatmap", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new RuntimeException(cause);
+        }
+    }
+}
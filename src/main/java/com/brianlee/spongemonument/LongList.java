@@ -0,0 +1,46 @@
+package com.brianlee.spongemonument;
+
+import java.util.Arrays;
+
+/** Growable {@code long[]} without boxing; used for packed candidate coordinates (see {@link PackedXZ}). */
+public final class LongList {
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int initialCapacity) {
+        values = new long[Math.max(1, initialCapacity)];
+    }
+
+    public void add(long v) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = v;
+    }
+
+    public long get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException(i + " >= " + size);
+        return values[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Drops everything past the first {@code newSize} values. */
+    public void truncate(int newSize) {
+        if (newSize < size) size = Math.max(0, newSize);
+    }
+
+    public void trimToSize() {
+        if (values.length > size) values = Arrays.copyOf(values, Math.max(1, size));
+    }
+}
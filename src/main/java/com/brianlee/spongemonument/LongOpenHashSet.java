@@ -0,0 +1,87 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Open-addressing (linear probing) set of longs, for dedup of packed coordinates without boxing.
+ * Zero is the empty-slot marker and is tracked separately.
+ */
+public final class LongOpenHashSet {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private int resizeAt;
+
+    public LongOpenHashSet() {
+        this(16);
+    }
+
+    public LongOpenHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, (int) Math.ceil(expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(cap);
+    }
+
+    /** Adds {@code v}; returns false when it was already present. */
+    public boolean add(long v) {
+        if (v == 0L) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = slot(v);
+        while (table[i] != 0L) {
+            if (table[i] == v) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = v;
+        if (++size >= resizeAt) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long v) {
+        if (v == 0L) return hasZero;
+        int i = slot(v);
+        while (table[i] != 0L) {
+            if (table[i] == v) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long v) {
+        // Murmur3 fmix64: packed coordinates differ mostly in low bits of each half.
+        v ^= v >>> 33;
+        v *= 0xff51afd7ed558ccdL;
+        v ^= v >>> 33;
+        v *= 0xc4ceb9fe1a85ec53L;
+        v ^= v >>> 33;
+        return (int) v & mask;
+    }
+
+    private void allocate(int cap) {
+        table = new long[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCap) {
+        long[] old = table;
+        allocate(newCap);
+        for (long v : old) {
+            if (v == 0L) continue;
+            int i = slot(v);
+            while (table[i] != 0L) {
+                i = (i + 1) & mask;
+            }
+            table[i] = v;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Uniform-grid spatial index over merged results (results.idx), built by the merge phase.
+ *
+ * The world is cut into square cells of {@code 1 << cellShift} blocks. Entries are stored cell by cell
+ * (row-major over the bounding grid), and inside a cell by descending sponge rooms, so a room threshold
+ * can stop scanning a cell early. The file is memory-mapped when loaded; queries allocate nothing.
+ *
+ * Layout (big-endian): magic "SPGI", version, cellShift, minCellX, minCellZ, cellsX, cellsZ, count,
+ * {@code int[cellsX * cellsZ + 1]} cell start offsets, then {@code count} entries of {@code int x, int z, int rooms}.
+ */
+public final class MonumentIndex {
+
+    public static final String FILE_NAME = "results.idx";
+
+    private static final int MAGIC = 0x53504749; // "SPGI"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int ENTRY_INTS = 3;
+
+    // Monument regions are 32 chunks (512 blocks) apart; 2048-block cells hold ~16 regions.
+    private static final int MIN_CELL_SHIFT = 11;
+
+    /** Receives matching entries. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int x, int z, int rooms);
+    }
+
+    private final int cellShift;
+    private final int minCellX;
+    private final int minCellZ;
+    private final int cellsX;
+    private final int cellsZ;
+    private final int count;
+    private final IntBuffer cellStart;
+    private final IntBuffer entries;
+
+    private MonumentIndex(ByteBuffer buf) {
+        IntBuffer ints = buf.asIntBuffer();
+        if (ints.get(0) != MAGIC) {
+            throw new IllegalStateException("Not a SpongeMonument index file");
+        }
+        if (ints.get(1) != VERSION) {
+            throw new IllegalStateException("Unsupported results.idx version " + ints.get(1));
+        }
+        this.cellShift = ints.get(2);
+        this.minCellX = ints.get(3);
+        this.minCellZ = ints.get(4);
+        this.cellsX = ints.get(5);
+        this.cellsZ = ints.get(6);
+        this.count = ints.get(7);
+
+        int cells = cellsX * cellsZ;
+        this.cellStart = ints.slice(HEADER_INTS, cells + 1);
+        this.entries = ints.slice(HEADER_INTS + cells + 1, count * ENTRY_INTS);
+    }
+
+    public static MonumentIndex load(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            return new MonumentIndex(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading index: " + file.toAbsolutePath(), e);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int cellSize() {
+        return 1 << cellShift;
+    }
+
+    /** Inclusive block bounds of the indexed grid (whole cells, so slightly larger than the data). */
+    public int minX() {
+        return minCellX << cellShift;
+    }
+
+    public int minZ() {
+        return minCellZ << cellShift;
+    }
+
+    public int maxX() {
+        return ((minCellX + cellsX) << cellShift) - 1;
+    }
+
+    public int maxZ() {
+        return ((minCellZ + cellsZ) << cellShift) - 1;
+    }
+
+    /** Visits every entry with at least {@code minRooms} rooms inside the block-aligned box (inclusive). */
+    public void forEachInBox(int minX, int minZ, int maxX, int maxZ, int minRooms, Visitor visitor) {
+        int cx0 = Math.max(0, (minX >> cellShift) - minCellX);
+        int cz0 = Math.max(0, (minZ >> cellShift) - minCellZ);
+        int cx1 = Math.min(cellsX - 1, (maxX >> cellShift) - minCellX);
+        int cz1 = Math.min(cellsZ - 1, (maxZ >> cellShift) - minCellZ);
+
+        for (int cz = cz0; cz <= cz1; cz++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cz * cellsX + cx;
+                int end = cellStart.get(cell + 1);
+                for (int e = cellStart.get(cell); e < end; e++) {
+                    int base = e * ENTRY_INTS;
+                    int rooms = entries.get(base + 2);
+                    if (rooms < minRooms) break; // cells are sorted by rooms descending
+                    int x = entries.get(base);
+                    int z = entries.get(base + 1);
+                    if (x < minX || x > maxX || z < minZ || z > maxZ) continue;
+                    visitor.accept(x, z, rooms);
+                }
+            }
+        }
+    }
+
+    /** Visits every entry with at least {@code minRooms} rooms within {@code radius} blocks (Euclidean) of (x, z). */
+    public void forEachWithin(int x, int z, int radius, int minRooms, Visitor visitor) {
+        long r2 = (long) radius * radius;
+        forEachInBox(x - radius, z - radius, x + radius, z + radius, minRooms, (ex, ez, rooms) -> {
+            long dx = ex - x;
+            long dz = ez - z;
+            if (dx * dx + dz * dz <= r2) {
+                visitor.accept(ex, ez, rooms);
+            }
+        });
+    }
+
+    /**
+     * The {@code k} entries with at least {@code minRooms} rooms closest to (x, z), nearest first.
+     * Searches cell rings outward and stops once no unvisited ring can beat the current k-th distance.
+     */
+    public List<MonumentResult> nearest(int x, int z, int k, int minRooms) {
+        if (k <= 0 || count == 0) return List.of();
+
+        long[] bestDist = new long[k];
+        int[] bestIdx = new int[k];
+        int found = 0;
+
+        int ox = (x >> cellShift) - minCellX;
+        int oz = (z >> cellShift) - minCellZ;
+        int maxRing = Math.max(Math.max(ox, cellsX - 1 - ox), Math.max(oz, cellsZ - 1 - oz));
+        int cell = 1 << cellShift;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (found == k) {
+                // Closest possible point of this ring is at least (ring - 1) whole cells away.
+                long minReach = (long) Math.max(0, ring - 1) * cell;
+                if (minReach * minReach > bestDist[k - 1]) break;
+            }
+            for (int cz = oz - ring; cz <= oz + ring; cz++) {
+                if (cz < 0 || cz >= cellsZ) continue;
+                boolean edgeRow = (cz == oz - ring || cz == oz + ring);
+                for (int cx = ox - ring; cx <= ox + ring; cx += edgeRow ? 1 : 2 * ring) {
+                    if (cx >= 0 && cx < cellsX) {
+                        int c = cz * cellsX + cx;
+                        int end = cellStart.get(c + 1);
+                        for (int e = cellStart.get(c); e < end; e++) {
+                            int base = e * ENTRY_INTS;
+                            if (entries.get(base + 2) < minRooms) break;
+                            long dx = entries.get(base) - x;
+                            long dz = entries.get(base + 1) - z;
+                            long d = dx * dx + dz * dz;
+                            if (found == k && d >= bestDist[k - 1]) continue;
+                            // Insertion into the small sorted top-k arrays.
+                            int i = (found < k) ? found++ : k - 1;
+                            while (i > 0 && bestDist[i - 1] > d) {
+                                bestDist[i] = bestDist[i - 1];
+                                bestIdx[i] = bestIdx[i - 1];
+                                i--;
+                            }
+                            bestDist[i] = d;
+                            bestIdx[i] = e;
+                        }
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+
+        MonumentResult[] out = new MonumentResult[found];
+        for (int i = 0; i < found; i++) {
+            int base = bestIdx[i] * ENTRY_INTS;
+            out[i] = new MonumentResult(entries.get(base), entries.get(base + 1), entries.get(base + 2));
+        }
+        return List.of(out);
+    }
+
+    /** Builds the index for {@code results} and writes it to {@code out}. */
+    public static void write(Path out, ResultStore results) {
+        int n = results.size();
+        int[] xs = new int[n];
+        int[] zs = new int[n];
+        int[] rooms = new int[n];
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            xs[i] = results.x(i);
+            zs[i] = results.z(i);
+            rooms[i] = results.spongeRooms(i);
+            minX = Math.min(minX, xs[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        if (n == 0) {
+            minX = minZ = maxX = maxZ = 0;
+        }
+
+        // Grow cells until the grid is no larger than ~2 cells per entry (keeps the offset table small).
+        int shift = MIN_CELL_SHIFT;
+        long maxCells = Math.max(4096L, 2L * n);
+        while (gridCells(minX, maxX, shift) * gridCells(minZ, maxZ, shift) > maxCells) {
+            shift++;
+        }
+        int minCellX = minX >> shift;
+        int minCellZ = minZ >> shift;
+        int cellsX = (int) gridCells(minX, maxX, shift);
+        int cellsZ = (int) gridCells(minZ, maxZ, shift);
+        int cells = cellsX * cellsZ;
+
+        // Counting sort by cell.
+        int[] cellOf = new int[n];
+        int[] start = new int[cells + 1];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = ((zs[i] >> shift) - minCellZ) * cellsX + ((xs[i] >> shift) - minCellX);
+            start[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] order = new int[n];
+        int[] fill = new int[cells];
+        for (int i = 0; i < n; i++) {
+            int c = cellOf[i];
+            order[start[c] + fill[c]++] = i;
+        }
+        // Within each cell: rooms descending (cells are small, insertion sort is fine).
+        for (int c = 0; c < cells; c++) {
+            for (int a = start[c] + 1; a < start[c + 1]; a++) {
+                int v = order[a];
+                int b = a - 1;
+                while (b >= start[c] && rooms[order[b]] < rooms[v]) {
+                    order[b + 1] = order[b];
+                    b--;
+                }
+                order[b + 1] = v;
+            }
+        }
+
+        try {
+            Files.createDirectories(out.getParent());
+            try (DataOutputStream d = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+                d.writeInt(MAGIC);
+                d.writeInt(VERSION);
+                d.writeInt(shift);
+                d.writeInt(minCellX);
+                d.writeInt(minCellZ);
+                d.writeInt(cellsX);
+                d.writeInt(cellsZ);
+                d.writeInt(n);
+                for (int v : start) {
+                    d.writeInt(v);
+                }
+                for (int i : order) {
+                    d.writeInt(xs[i]);
+                    d.writeInt(zs[i]);
+                    d.writeInt(rooms[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing index: " + out.toAbsolutePath(), e);
+        }
+    }
+
+    private static long gridCells(int min, int max, int shift) {
+        return (long) (max >> shift) - (min >> shift) + 1;
+    }
+}
@@ -0,0 +1,167 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Compact, fixed-size description of one monument's room graph.
+ *
+ * Ocean monument rooms live on a 5 (x) by 4 (z) by 3 (y) grid of "slots"; vanilla stores each room's
+ * origin slot as {@code PieceSetting.roomIndex = y * 25 + z * 5 + x}. That fits in 60 bits, so:
+ * <ul>
+ *   <li>{@code roomMask}: bit {@code slot} set when a room piece starts in that slot (bits 0..59),
+ *       plus piece-presence flags in bits 60..63 (entry, core, wing rooms, penthouse).
+ *       This is the 64-bit layout signature.</li>
+ *   <li>{@code spongeMask}: bit {@code slot} set when that slot holds a SimpleRoomTop (sponge room).</li>
+ *   <li>{@code typeTable}: 4-bit saturating piece count per {@link PieceType} ordinal.</li>
+ * </ul>
+ * Multi-slot rooms (DoubleX etc.) only mark their origin slot, exactly like vanilla's roomIndex.
+ *
+ * The type table is a count, not a per-slot map: it keeps the layout at three words, so a result stays five
+ * words in {@link ResultStore} and one fixed row in results.bin, where a 4-bit type per slot would add four.
+ * Answerable from a stored layout: which slots start a room, which slots hold a sponge room (and so sponge
+ * rooms near any slot, e.g. the entrance), whether entry, core, wing rooms and penthouse are present, and how
+ * many pieces of each type there are. Not answerable:
+ * <ul>
+ *   <li>the type of the room starting in a given slot, other than whether it is a sponge room
+ *       (a SimpleRoom and a DoubleXRoom origin look the same in {@code roomMask});</li>
+ *   <li>where the pieces of a given type are (e.g. which slots hold DoubleYRooms);</li>
+ *   <li>which further slots a multi-slot room covers;</li>
+ *   <li>exact counts above 15: {@link #count} returns 15 for "15 or more".</li>
+ * </ul>
+ */
+public record MonumentLayout(
+    int spongeRooms,
+    long roomMask,
+    long spongeMask,
+    long typeTable
+) {
+    public static final MonumentLayout UNKNOWN = new MonumentLayout(0, 0L, 0L, 0L);
+
+    public static final int SLOTS_X = 5;
+    public static final int SLOTS_Z = 4;
+    public static final int SLOTS_Y = 3;
+    public static final int SLOT_COUNT = SLOTS_X * SLOTS_Z * SLOTS_Y; // 60
+
+    public static final long FLAG_ENTRY = 1L << 60;
+    public static final long FLAG_CORE = 1L << 61;
+    public static final long FLAG_WING = 1L << 62;
+    public static final long FLAG_PENTHOUSE = 1L << 63;
+
+    private static final long SLOT_BITS = (1L << SLOT_COUNT) - 1;
+
+    /** Piece classes found in OceanMonumentGenerator$Base.children (matched by simple class name). */
+    public enum PieceType {
+        OTHER,
+        ENTRY,
+        CORE_ROOM,
+        WING_ROOM,
+        PENTHOUSE,
+        SIMPLE_ROOM,
+        SIMPLE_ROOM_TOP,
+        DOUBLE_X_ROOM,
+        DOUBLE_Y_ROOM,
+        DOUBLE_Z_ROOM,
+        DOUBLE_XY_ROOM,
+        DOUBLE_YZ_ROOM;
+
+        public static PieceType fromSimpleName(String simple) {
+            return switch (simple) {
+                case "Entry" -> ENTRY;
+                case "CoreRoom" -> CORE_ROOM;
+                case "WingRoom" -> WING_ROOM;
+                case "Penthouse" -> PENTHOUSE;
+                case "SimpleRoom" -> SIMPLE_ROOM;
+                case "SimpleRoomTop" -> SIMPLE_ROOM_TOP;
+                case "DoubleXRoom" -> DOUBLE_X_ROOM;
+                case "DoubleYRoom" -> DOUBLE_Y_ROOM;
+                case "DoubleZRoom" -> DOUBLE_Z_ROOM;
+                case "DoubleXYRoom" -> DOUBLE_XY_ROOM;
+                case "DoubleYZRoom" -> DOUBLE_YZ_ROOM;
+                default -> OTHER;
+            };
+        }
+    }
+
+    /** Maps a vanilla roomIndex to a signature slot, or -1 when it is not a grid room (e.g. core/wing ids). */
+    public static int slotOf(int roomIndex) {
+        if (roomIndex < 0 || roomIndex >= 75) return -1;
+        int y = roomIndex / 25;
+        int z = (roomIndex % 25) / 5;
+        int x = roomIndex % 5;
+        if (z >= SLOTS_Z) return -1;
+        return slot(x, y, z);
+    }
+
+    public static int slot(int x, int y, int z) {
+        return y * (SLOTS_X * SLOTS_Z) + z * SLOTS_X + x;
+    }
+
+    public boolean hasRoom(int x, int y, int z) {
+        return (roomMask & (1L << slot(x, y, z))) != 0;
+    }
+
+    public boolean isSpongeRoom(int x, int y, int z) {
+        return (spongeMask & (1L << slot(x, y, z))) != 0;
+    }
+
+    public int roomSlotCount() {
+        return Long.bitCount(roomMask & SLOT_BITS);
+    }
+
+    public boolean hasWingRooms() {
+        return (roomMask & FLAG_WING) != 0;
+    }
+
+    /** Pieces of {@code type} in the monument, saturated at 15 (so 15 means "15 or more"). */
+    public int count(PieceType type) {
+        return (int) ((typeTable >>> (type.ordinal() * 4)) & 0xF);
+    }
+
+    /** Sponge rooms whose slot is within {@code maxSteps} (Manhattan, in slots) of slot (x, y, z). */
+    public int spongeRoomsWithin(int x, int y, int z, int maxSteps) {
+        int n = 0;
+        long m = spongeMask & SLOT_BITS;
+        while (m != 0) {
+            int s = Long.numberOfTrailingZeros(m);
+            m &= m - 1;
+            int sy = s / (SLOTS_X * SLOTS_Z);
+            int sz = (s % (SLOTS_X * SLOTS_Z)) / SLOTS_X;
+            int sx = s % SLOTS_X;
+            if (Math.abs(sx - x) + Math.abs(sy - y) + Math.abs(sz - z) <= maxSteps) n++;
+        }
+        return n;
+    }
+
+    /** Incrementally builds a layout while walking monument pieces. */
+    public static final class Builder {
+        private int spongeRooms;
+        private long roomMask;
+        private long spongeMask;
+        private long typeTable;
+
+        public void add(PieceType type, Integer roomIndex) {
+            int slot = roomIndex == null ? -1 : slotOf(roomIndex);
+            if (slot >= 0) roomMask |= 1L << slot;
+
+            switch (type) {
+                case ENTRY -> roomMask |= FLAG_ENTRY;
+                case CORE_ROOM -> roomMask |= FLAG_CORE;
+                case WING_ROOM -> roomMask |= FLAG_WING;
+                case PENTHOUSE -> roomMask |= FLAG_PENTHOUSE;
+                case SIMPLE_ROOM_TOP -> {
+                    spongeRooms++;
+                    if (slot >= 0) spongeMask |= 1L << slot;
+                }
+                default -> { }
+            }
+
+            int shift = type.ordinal() * 4;
+            long c = (typeTable >>> shift) & 0xF;
+            if (c < 0xF) {
+                typeTable += 1L << shift;
+            }
+        }
+
+        public MonumentLayout build() {
+            return new MonumentLayout(spongeRooms, roomMask, spongeMask, typeTable);
+        }
+    }
+}
@@ -11,21 +11,54 @@ import net.minecraft.util.math.BlockBox;
 
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Optional;
 
 public final class MonumentLayoutAnalyzer {
 
-    private static BlockBox tryGetBoundingBox(StructurePiece piece) {
-        if (piece == null) return null;
-        try {
-            // Prefer reflection to avoid Yarn name differences.
-            Field bb = findField(piece.getClass(), "boundingBox");
-            Object v = bb == null ? null : bb.get(piece);
-            return (v instanceof BlockBox b) ? b : null;
-        } catch (Throwable ignored) {
-            return null;
+    /**
+     * Per-class reflective field lookup, resolved once per runtime class instead of once per piece.
+     * Empty when the class hierarchy has no such field (mapping drift).
+     */
+    private static final class FieldLookup extends ClassValue<Optional<Field>> {
+        private final String name;
+
+        FieldLookup(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected Optional<Field> computeValue(Class<?> type) {
+            return Optional.ofNullable(findField(type, name));
+        }
+
+        Object get(Object target) {
+            if (target == null) return null;
+            Field f = get(target.getClass()).orElse(null);
+            if (f == null) return null;
+            try {
+                return f.get(target);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
         }
     }
 
+    // In Yarn mappings, OceanMonumentGenerator$Piece has "setting"; PieceSetting has "roomIndex"; Base has "children".
+    private static final FieldLookup SETTING = new FieldLookup("setting");
+    private static final FieldLookup ROOM_INDEX = new FieldLookup("roomIndex");
+    private static final FieldLookup CHILDREN = new FieldLookup("children");
+
+    private static final ClassValue<MonumentLayout.PieceType> PIECE_TYPE = new ClassValue<>() {
+        @Override
+        protected MonumentLayout.PieceType computeValue(Class<?> type) {
+            MonumentLayout.PieceType t = MonumentLayout.PieceType.fromSimpleName(type.getSimpleName());
+            if (t == MonumentLayout.PieceType.OTHER && type.getName().contains("SimpleRoomTop")) {
+                t = MonumentLayout.PieceType.SIMPLE_ROOM_TOP;
+            }
+            return t;
+        }
+    };
+
     private static Field findField(Class<?> c, String name) {
         Class<?> cur = c;
         while (cur != null) {
@@ -35,30 +68,17 @@ public final class MonumentLayoutAnalyzer {
                 return f;
             } catch (NoSuchFieldException ignored) {
                 cur = cur.getSuperclass();
+            } catch (RuntimeException ignored) {
+                return null; // inaccessible (module rules)
             }
         }
         return null;
     }
 
-    private static Object getOceanMonumentPieceSetting(StructurePiece piece) {
-        // In Yarn mappings, OceanMonumentGenerator$Piece has a field named "setting".
-        // We reflect it from the actual runtime class hierarchy.
-        Field f = findField(piece.getClass(), "setting");
-        if (f == null) return null;
-        try {
-            return f.get(piece);
-        } catch (IllegalAccessException e) {
-            return null;
-        }
-    }
-
     @SuppressWarnings("unchecked")
-    private static List<StructurePiece> getMonumentRoomPiecesFromStart(StructureStart start) {
+    private static List<StructurePiece> getMonumentRoomPieces(List<StructurePiece> top) {
         // In modern Minecraft, the StructureStart's children list usually contains a single OceanMonumentGenerator$Base.
         // The *actual* per-room pieces live inside Base.children (a List<StructurePiece>).
-        if (start == null) return List.of();
-
-        List<StructurePiece> top = start.getChildren();
         if (top == null || top.isEmpty()) return List.of();
 
         // Find the Base piece (usually child[0])
@@ -74,55 +94,69 @@ public final class MonumentLayoutAnalyzer {
         if (base == null) base = top.get(0);
 
         // Reflect Base.children
-        try {
-            Field f = findField(base.getClass(), "children");
-            if (f != null) {
-                Object v = f.get(base);
-                if (v instanceof List<?> list) {
-                    // Best-effort cast; contents should be StructurePiece
-                    return (List<StructurePiece>) (List<?>) list;
-                }
-            }
-        } catch (Throwable ignored) {
+        Object v = CHILDREN.get(base);
+        if (v instanceof List<?> list) {
+            // Best-effort cast; contents should be StructurePiece
+            return (List<StructurePiece>) (List<?>) list;
         }
 
         // Fallback: return the top-level list
         return top;
     }
 
+    public static int countSpongeRoomsFromStart(ServerWorld world, ChunkPos chunkPos, Structure structure) {
+        MonumentProfile profile = analyzeProfileFromStart(world, chunkPos, structure);
+        return profile == null ? -1 : profile.spongeRooms();
+    }
 
-    private static Integer tryGetIntField(Object obj, String... names) {
-        if (obj == null) return null;
-        for (String n : names) {
-            Field f = findField(obj.getClass(), n);
-            if (f == null) continue;
-            try {
-                Object v = f.get(obj);
-                if (v instanceof Integer i) return i;
-                if (f.getType() == int.class) return (Integer) v;
-            } catch (Throwable ignored) {
-            }
-        }
-        return null;
+    public static MonumentLayout analyzeLayoutFromStart(ServerWorld world, ChunkPos chunkPos, Structure structure) {
+        MonumentProfile profile = analyzeProfileFromStart(world, chunkPos, structure);
+        return profile == null ? null : profile.layout();
     }
 
-    public static int countSpongeRoomsFromStart(ServerWorld world, ChunkPos chunkPos, Structure structure) {
+    /**
+     * Walks the monument's room pieces once and records everything the walk sees: the room graph with
+     * per-type counts and core/wing presence ({@link MonumentLayout}) and the monument's bounding box.
+     * Returns null when the chunk has no actual monument start (biome/placement check failed).
+     */
+    public static MonumentProfile analyzeProfileFromStart(ServerWorld world, ChunkPos chunkPos, Structure structure) {
         world.getChunk(chunkPos.x, chunkPos.z, ChunkStatus.STRUCTURE_STARTS, true);
 
         StructureAccessor accessor = world.getStructureAccessor();
         List<StructureStart> starts = accessor.getStructureStarts(chunkPos, s -> s == structure);
         // If there is no actual monument start in this chunk, treat it as a non-monument candidate.
         // This allows caller to filter out Chunkbase-style candidates that fail biome/placement checks.
-        if (starts.isEmpty()) return -1;
+        if (starts.isEmpty()) return null;
+        return analyzeProfile(starts.get(0));
+    }
+
+    /**
+     * Same walk for a start the caller already holds (e.g. from a chunk future completed off-thread).
+     * Returns null for a missing or empty start. Only reads the start, so any thread may call it.
+     */
+    public static MonumentProfile analyzeProfile(StructureStart start) {
+        if (start == null || !start.hasChildren()) return null;
+        // The start's box is the union of its pieces (the whole 58x58 monument).
+        return analyzePieces(start.getChildren(), start.getBoundingBox());
+    }
+
+    /**
+     * Same walk for a Base piece built outside a world, e.g. regenerated from a saved region file
+     * (see {@link RegionFileScanner}). The Base's own box spans the whole monument.
+     */
+    public static MonumentProfile analyzeProfileFromBase(StructurePiece base) {
+        return analyzePieces(List.of(base), base.getBoundingBox());
+    }
 
-        StructureStart start = starts.get(0);
+    private static MonumentProfile analyzePieces(List<StructurePiece> top, BlockBox bb) {
+        boolean debug = SpongeMonumentMod.LOGGER.isDebugEnabled();
 
         // The StructureStart typically has a single OceanMonumentGenerator$Base child.
         // The per-room pieces are stored inside Base.children.
 
-        List<StructurePiece> roomPieces = getMonumentRoomPiecesFromStart(start);
+        List<StructurePiece> roomPieces = getMonumentRoomPieces(top);
 
-        int spongeRoomCount = 0;
+        MonumentLayout.Builder layout = new MonumentLayout.Builder();
         int idx = 0;
         for (StructurePiece piece : roomPieces) {
             if (piece == null) {
@@ -130,41 +164,36 @@ public final class MonumentLayoutAnalyzer {
                 continue;
             }
 
-            String simple = piece.getClass().getSimpleName();
-
-            // Bounding box
-            BlockBox bb = tryGetBoundingBox(piece);
-
-            // PieceSetting summary (only roomIndex needed for log)
-            Object setting = getOceanMonumentPieceSetting(piece);
-            Integer roomIndex = null;
-            if (setting != null) {
-                roomIndex = tryGetIntField(setting, "roomIndex");
-            }
+            // PieceSetting: roomIndex places the piece on the monument's room grid
+            Object roomIndexValue = ROOM_INDEX.get(SETTING.get(piece));
+            Integer roomIndex = roomIndexValue instanceof Integer i ? i : null;
 
             // Sponge-room inference (fast): the generated monument layout includes a SimpleRoomTop
             // piece for each sponge room. No block scanning needed.
-            boolean isSpongeRoom = simple.equals("SimpleRoomTop") || piece.getClass().getName().contains("SimpleRoomTop");
+            MonumentLayout.PieceType type = PIECE_TYPE.get(piece.getClass());
 
-            if (isSpongeRoom) {
-                SpongeMonumentMod.LOGGER.info(
+            if (debug && type == MonumentLayout.PieceType.SIMPLE_ROOM_TOP) {
+                SpongeMonumentMod.LOGGER.debug(
                         "[MonumentDebug] spongeRoom idx={} class={} roomIndex={} bb={}",
                         idx,
-                        simple,
+                        piece.getClass().getSimpleName(),
                         roomIndex,
-                        bb
+                        piece.getBoundingBox()
                 );
             }
-            if (isSpongeRoom) {
-                spongeRoomCount++;
-            }
+            layout.add(type, roomIndex);
             idx++;
         }
 
-        if (spongeRoomCount > 0) {
-            SpongeMonumentMod.LOGGER.info("[MonumentDebug] spongeRoomsDetected={}", spongeRoomCount);
+        MonumentLayout result = layout.build();
+        if (debug && result.spongeRooms() > 0) {
+            SpongeMonumentMod.LOGGER.debug("[MonumentDebug] spongeRoomsDetected={} roomMask={}",
+                    result.spongeRooms(), Long.toHexString(result.roomMask()));
         }
 
-        return spongeRoomCount;
+        if (bb == null) {
+            return MonumentProfile.of(result);
+        }
+        return new MonumentProfile(result, bb.getMinX(), bb.getMinY(), bb.getMinZ(), bb.getMaxX(), bb.getMaxY(), bb.getMaxZ());
     }
-}
\ No newline at end of file
+}
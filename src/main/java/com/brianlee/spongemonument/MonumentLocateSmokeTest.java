@@ -1,14 +1,12 @@
 package com.brianlee.spongemonument;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Set;
 
 import org.slf4j.Logger;
 
@@ -31,11 +29,10 @@ public final class MonumentLocateSmokeTest {
         runEnumerate(server, world, start, radiusBlocks, 1, true);
     }
 
-    public static void runCoordsOnly(
-        ServerWorld world,
-        BlockPos center,
-        int radiusBlocks,
-        int excludeRadiusBlocks,
+    /** Writes the source's candidates inside {@code shape} to {@code candidatesOut}; returns how many were written. */
+    public static int runCoordsOnly(
+        MonumentSource source,
+        ScanShape shape,
         int maxResults,
         Path candidatesOut
     ) {
@@ -52,13 +49,14 @@ public final class MonumentLocateSmokeTest {
                     log.warn("[SpongeMonument] (coords) Failed to delete stale file: {}", candidatesOut.getFileName(), e);
                 }
             }
-            // Delete results_part_*.csv in parent directory
+            // Delete results_part_*.csv and batch_stats_*.properties in parent directory
             Path parentDir = candidatesOut.getParent();
             if (parentDir != null && Files.exists(parentDir)) {
                 try (var stream = Files.list(parentDir)) {
                     stream.forEach(p -> {
                         String name = p.getFileName().toString();
-                        if (name.startsWith("results_part_") && name.endsWith(".csv")) {
+                        if ((name.startsWith("results_part_") && name.endsWith(".csv"))
+                                || (name.startsWith(BatchStats.FILE_PREFIX) && name.endsWith(".properties"))) {
                             try {
                                 Files.deleteIfExists(p);
                                 log.info("[SpongeMonument] (coords) Deleted stale file: {}", p.getFileName());
@@ -75,19 +73,9 @@ public final class MonumentLocateSmokeTest {
             log.warn("[SpongeMonument] (coords) Exception during cleanup", e);
         }
 
-        int radiusChunks = Math.max(1, (radiusBlocks + 15) / 16);
-        int excludeRadiusChunks = Math.max(0, (excludeRadiusBlocks + 15) / 16);
-        if (excludeRadiusChunks > radiusChunks) {
-            excludeRadiusChunks = radiusChunks;
-        }
-        ChunkPos centerChunk = new ChunkPos(center);
-
-        List<ChunkPos> candidates = OceanMonumentCoords.findMonumentStartChunks(
-                world, centerChunk, radiusChunks, excludeRadiusChunks, maxResults
-        );
+        LongList candidates = source.candidates(shape, maxResults);
 
-        log.info("[SpongeMonument] (coords) radiusBlocks={} excludeRadiusBlocks={} (chunks: radius={} exclude={})",
-                radiusBlocks, excludeRadiusBlocks, radiusChunks, excludeRadiusChunks);
+        log.info("[SpongeMonument] (coords) source={} shape={}", source.name(), shape.describe());
         log.info("[SpongeMonument] (coords) Found {} candidate monument start chunk(s). Writing to {}",
                 candidates.size(), candidatesOut.toAbsolutePath());
 
@@ -95,8 +83,9 @@ public final class MonumentLocateSmokeTest {
             Files.createDirectories(candidatesOut.getParent());
             try (BufferedWriter w = Files.newBufferedWriter(candidatesOut)) {
                 w.write("chunk_x,chunk_z\n");
-                for (ChunkPos c : candidates) {
-                    w.write(c.x + "," + c.z + "\n");
+                for (int i = 0; i < candidates.size(); i++) {
+                    long c = candidates.get(i);
+                    w.write(PackedXZ.x(c) + "," + PackedXZ.z(c) + "\n");
                 }
             }
         } catch (IOException e) {
@@ -104,20 +93,21 @@ public final class MonumentLocateSmokeTest {
         }
 
         log.info("[SpongeMonument] (coords) Wrote {} row(s).", candidates.size());
+        return candidates.size();
     }
 
-    private static List<ChunkPos> readCandidates(Path file) {
-    try {
-        List<String> lines = Files.readAllLines(file);
-        List<ChunkPos> out = new ArrayList<>();
-        for (int i = 0; i < lines.size(); i++) {
-            String s = lines.get(i).trim();
+    static LongList readCandidates(Path file) {
+    try (BufferedReader r = Files.newBufferedReader(file)) {
+        LongList out = new LongList(1024);
+        String line;
+        for (int i = 0; (line = r.readLine()) != null; i++) {
+            String s = line.trim();
             if (s.isEmpty()) continue;
             if (i == 0 && s.toLowerCase().contains("chunk_x")) continue; // header
             String[] parts = s.split(",");
             int cx = Integer.parseInt(parts[0].trim());
             int cz = Integer.parseInt(parts[1].trim());
-            out.add(new ChunkPos(cx, cz));
+            out.add(PackedXZ.pack(cx, cz));
         }
         return out;
         } catch (IOException e) {
@@ -125,13 +115,13 @@ public final class MonumentLocateSmokeTest {
         }
     }
 
-    private static void writeResultsCsv(Path out, List<MonumentResult> results) {
+    static void writeResultsCsv(Path out, ResultStore results) {
         try {
             Files.createDirectories(out.getParent());
             try (BufferedWriter w = Files.newBufferedWriter(out)) {
-                w.write("x,z,inferred_sponge_rooms\n");
-                for (MonumentResult r : results) {
-                    w.write(r.x() + "," + r.z() + "," + r.spongeRooms() + "\n");
+                w.write(RESULTS_HEADER);
+                for (int i = 0; i < results.size(); i++) {
+                    writeResultRow(w, results, i);
                 }
             }
         } catch (IOException e) {
@@ -139,20 +129,63 @@ public final class MonumentLocateSmokeTest {
         }
     }
 
+    /** Appends rows to {@code out}; {@code fresh} starts the file over (with a header) instead. */
+    static void appendResultsCsv(Path out, ResultStore results, boolean fresh) {
+        StandardOpenOption mode = fresh ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try {
+            Files.createDirectories(out.getParent());
+            try (BufferedWriter w = Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                if (fresh) w.write(RESULTS_HEADER);
+                for (int i = 0; i < results.size(); i++) {
+                    writeResultRow(w, results, i);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed appending results: " + out.toAbsolutePath(), e);
+        }
+    }
+
+    // Layout columns are hex-encoded MonumentLayout words, then the monument's block bounding box
+    // (empty when unknown); tools locate columns by header name.
+    private static final String RESULTS_HEADER = "x,z,inferred_sponge_rooms,room_mask,sponge_mask,type_table,min_x,min_y,min_z,max_x,max_y,max_z\n";
+
+    private static void writeResultRow(BufferedWriter w, ResultStore r, int i) throws IOException {
+        w.write(r.x(i) + "," + r.z(i) + "," + r.spongeRooms(i) + ","
+                + Long.toHexString(r.roomMask(i)) + ","
+                + Long.toHexString(r.spongeMask(i)) + ","
+                + Long.toHexString(r.typeTable(i)) + ","
+                + boundsColumns(r.profile(i)) + "\n");
+    }
+
+    private static String boundsColumns(MonumentProfile p) {
+        if (!p.hasBounds()) return ",,,,,";
+        return p.minX() + "," + p.minY() + "," + p.minZ() + "," + p.maxX() + "," + p.maxY() + "," + p.maxZ();
+    }
+
     public static void runAnalyzeBatch(
-        ServerWorld world,
+        MonumentSource source,
         Path candidatesFile,
         int batchStart,
         int batchSize,
         Path outDir
     ) {
-        Logger log = SpongeMonumentMod.LOGGER;
-
         if (!Files.exists(candidatesFile)) {
             throw new IllegalStateException("candidates file not found: " + candidatesFile.toAbsolutePath());
         }
 
-        List<ChunkPos> candidates = readCandidates(candidatesFile);
+        runAnalyzeBatch(source, readCandidates(candidatesFile), batchStart, batchSize, outDir);
+    }
+
+    /** Same as above on an already loaded candidate list (a queue worker analyzes many ranges of one list). */
+    static void runAnalyzeBatch(
+        MonumentSource source,
+        LongList candidates,
+        int batchStart,
+        int batchSize,
+        Path outDir
+    ) {
+        Logger log = SpongeMonumentMod.LOGGER;
+
         int end = Math.min(candidates.size(), batchStart + Math.max(0, batchSize));
 
         if (batchStart < 0 || batchStart >= candidates.size()) {
@@ -160,40 +193,49 @@ public final class MonumentLocateSmokeTest {
             return;
         }
 
-        Registry<Structure> structureRegistry = world.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE);
-        RegistryKey<Structure> monumentKey = RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
-        Structure monumentStructure = structureRegistry.getOrThrow(monumentKey).value();
-
-        List<MonumentResult> results = new ArrayList<>();
+        ResultStore results = new ResultStore(Math.max(1, end - batchStart));
 
         log.info("[SpongeMonument] (analyze) candidates={} batchStart={} batchEnd={} batchSize={}",
                 candidates.size(), batchStart, end, batchSize);
 
-        for (int i = batchStart; i < end; i++) {
-            ChunkPos foundChunk = candidates.get(i);
-            BlockPos foundPos = foundChunk.getStartPos();
-
-            int spongeRooms = MonumentLayoutAnalyzer.countSpongeRoomsFromStart(world, foundChunk, monumentStructure);
-            if (spongeRooms >= 0) {
-                results.add(new MonumentResult(foundPos.getX(), foundPos.getZ(), spongeRooms));
-            }
-            else{
-                log.info("[SpongeMonument] (analyze) No valid monument structure start found at (x={}, z={})",
-                        foundPos.getX(),
-                        foundPos.getZ());
+        // Heap/time per candidate are reported back to runAll, which sizes the next batch from them.
+        BatchStats stats = BatchStats.begin(batchStart);
+        try {
+            for (int i = batchStart; i < end; i++) {
+                long packed = candidates.get(i);
+                int chunkX = PackedXZ.x(packed);
+                int chunkZ = PackedXZ.z(packed);
+
+                MonumentProfile profile = source.analyze(chunkX, chunkZ);
+                if (profile != null) {
+                    results.add(chunkX << 4, chunkZ << 4, profile.spongeRooms(), profile);
+                }
+                else{
+                    log.info("[SpongeMonument] (analyze) No valid monument structure start found at (x={}, z={})",
+                            chunkX << 4,
+                            chunkZ << 4);
+                }
+                stats.candidateDone();
             }
+        } catch (OutOfMemoryError e) {
+            // Drop what we can before writing the report; runAll will retry this range with a smaller batch.
+            results = null;
+            candidates = null;
+            stats.finish(outDir, true);
+            throw e;
         }
 
         Path part = outDir.resolve("results_part_" + batchStart + ".csv");
         writeResultsCsv(part, results);
 
         log.info("[SpongeMonument] (analyze) Wrote {} row(s) to {}", results.size(), part.toAbsolutePath());
+        stats.finish(outDir, false);
     }
 
     public static void runMerge(Path outDir) {
         Logger log = SpongeMonumentMod.LOGGER;
 
-        List<MonumentResult> all = new ArrayList<>();
+        ResultStore all = new ResultStore();
 
         try (var stream = Files.list(outDir)) {
             List<Path> parts = stream
@@ -208,28 +250,35 @@ public final class MonumentLocateSmokeTest {
             }
 
             for (Path p : parts) {
-                all.addAll(readResultsCsv(p));
+                readResultsCsv(p, all);
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed listing merge inputs in: " + outDir.toAbsolutePath(), e);
         }
 
-        all.sort(
-                Comparator
-                        .comparingInt(MonumentResult::spongeRooms).reversed()
-                        .thenComparingLong(MonumentResult::distanceSq)
-        );
+        all.sortByRoomsThenDistance();
 
         Path finalOut = outDir.resolve("results.csv");
         writeResultsCsv(finalOut, all);
 
-        log.info("[SpongeMonument] (merge) Wrote merged results: {} row(s) -> {}", all.size(), finalOut.toAbsolutePath());
+        Path binOut = outDir.resolve(ResultsBinary.FILE_NAME);
+        ResultsBinary.write(binOut, all);
+
+        // Spatial index for radius / nearest queries (see SpongeQuery).
+        Path idxOut = outDir.resolve(MonumentIndex.FILE_NAME);
+        MonumentIndex.write(idxOut, all);
+
+        log.info("[SpongeMonument] (merge) Wrote merged results: {} row(s) -> {} (+ {}, {})",
+                all.size(), finalOut.toAbsolutePath(), binOut.getFileName(), idxOut.getFileName());
+
+        // Candidate count and histogram for the benchmark task (candidates.csv is removed just below).
+        writeMergeStats(outDir, all);
 
         // ---- CLEANUP INTERMEDIATE FILES ----
         try (var stream = Files.list(outDir)) {
             stream.forEach(p -> {
                 String name = p.getFileName().toString();
-                if (name.equals("candidates.csv") || name.startsWith("results_part_")) {
+                if (name.equals("candidates.csv") || name.startsWith("results_part_") || name.startsWith(BatchStats.FILE_PREFIX)) {
                     try {
                         Files.deleteIfExists(p);
                         log.info("[SpongeMonument] (merge) Deleted intermediate file: {}", p.getFileName());
@@ -243,45 +292,89 @@ public final class MonumentLocateSmokeTest {
         }
 
         // ---- SUMMARY STATS ----
-        // Distribution: spongeRooms -> frequency
-        java.util.Map<Integer, Integer> freq = new java.util.HashMap<>();
-        long estimatedWetSponges = 0L;
-        for (MonumentResult r : all) {
-            int rooms = r.spongeRooms();
-            freq.merge(rooms, 1, Integer::sum);
-        }
+        // Distribution: index = spongeRooms, value = frequency
+        int[] freq = all.roomHistogram();
+        long expectedWetSponges = 0L;
 
         // Print distribution sorted by sponge rooms (descending)
-        java.util.List<Integer> keys = new java.util.ArrayList<>(freq.keySet());
-        keys.sort(java.util.Comparator.reverseOrder());
-
         log.info("[SpongeMonument] ===== Sponge room distribution =====");
-        for (int rooms : keys) {
-            int count = freq.getOrDefault(rooms, 0);
+        for (int rooms = freq.length - 1; rooms >= 0; rooms--) {
+            int count = freq[rooms];
+            if (count == 0) continue;
             log.info("[SpongeMonument] {} : {}", rooms, count);
-            // Each sponge room produces ~30 wet sponges.
-            estimatedWetSponges += (long) rooms * (long) count * 30L;
+            expectedWetSponges += MonumentProfile.expectedWetSponges(rooms) * count;
         }
-        log.info("[SpongeMonument] Estimated total wet sponges from sponge rooms is (rooms * count * 30): {}", estimatedWetSponges);
-        log.info("[SpongeMonument] If you taken account for killing 3 elder guardians in an ocean monument, this gives exactly {} wet sponges.", 3 * all.size());
-        log.info("[SpongeMonument] Altogether, you get approximately {} wet sponges.", estimatedWetSponges + 3 * all.size());
+        // The yield of a monument with no sponge room is what the elder guardians drop.
+        long guardianSponges = MonumentProfile.expectedWetSponges(0) * all.size();
+        log.info("[SpongeMonument] Estimated total wet sponges from sponge rooms is (rooms * count * 30): {}", expectedWetSponges - guardianSponges);
+        log.info("[SpongeMonument] If you taken account for killing 3 elder guardians in an ocean monument, this gives exactly {} wet sponges.", guardianSponges);
+        log.info("[SpongeMonument] Altogether, you get approximately {} wet sponges.", expectedWetSponges);
     }
 
-    private static List<MonumentResult> readResultsCsv(Path p) {
-        try {
-            List<String> lines = Files.readAllLines(p);
-            List<MonumentResult> out = new ArrayList<>();
-            for (int i = 0; i < lines.size(); i++) {
-                String s = lines.get(i).trim();
+    public static final String MERGE_STATS_FILE = "merge_stats.properties";
+
+    private static void writeMergeStats(Path outDir, ResultStore all) {
+        long candidates = -1L;
+        Path candidatesPath = outDir.resolve("candidates.csv");
+        if (Files.exists(candidatesPath)) {
+            try (var lines = Files.lines(candidatesPath)) {
+                candidates = lines.skip(1).filter(l -> !l.isBlank()).count();
+            } catch (IOException e) {
+                SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (merge) Failed counting candidates", e);
+            }
+        }
+
+        int[] hist = all.roomHistogram();
+
+        java.util.Properties p = new java.util.Properties();
+        p.setProperty("candidates", Long.toString(candidates));
+        p.setProperty("monuments", Integer.toString(all.size()));
+        for (int rooms = 0; rooms < hist.length; rooms++) {
+            if (hist[rooms] > 0) p.setProperty("hist." + rooms, Integer.toString(hist[rooms]));
+        }
+
+        Path out = outDir.resolve(MERGE_STATS_FILE);
+        try (var os = Files.newOutputStream(out)) {
+            p.store(os, "SpongeMonument merge stats");
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (merge) Failed writing {}", out.getFileName(), e);
+        }
+    }
+
+    static void readResultsCsv(Path p, ResultStore out) {
+        try (BufferedReader r = Files.newBufferedReader(p)) {
+            String line;
+            for (int i = 0; (line = r.readLine()) != null; i++) {
+                String s = line.trim();
                 if (s.isEmpty()) continue;
                 if (i == 0 && s.toLowerCase().contains("inferred_sponge_rooms")) continue; // header
                 String[] parts = s.split(",");
                 int x = Integer.parseInt(parts[0].trim());
                 int z = Integer.parseInt(parts[1].trim());
                 int rooms = Integer.parseInt(parts[2].trim());
-                out.add(new MonumentResult(x, z, rooms));
+                MonumentLayout layout = MonumentLayout.UNKNOWN;
+                if (parts.length >= 6) {
+                    layout = new MonumentLayout(
+                            rooms,
+                            Long.parseUnsignedLong(parts[3].trim(), 16),
+                            Long.parseUnsignedLong(parts[4].trim(), 16),
+                            Long.parseUnsignedLong(parts[5].trim(), 16)
+                    );
+                }
+                MonumentProfile profile = MonumentProfile.of(layout);
+                if (parts.length >= 12) {
+                    profile = new MonumentProfile(
+                            layout,
+                            Integer.parseInt(parts[6].trim()),
+                            Integer.parseInt(parts[7].trim()),
+                            Integer.parseInt(parts[8].trim()),
+                            Integer.parseInt(parts[9].trim()),
+                            Integer.parseInt(parts[10].trim()),
+                            Integer.parseInt(parts[11].trim())
+                    );
+                }
+                out.add(x, z, rooms, profile);
             }
-            return out;
         } catch (IOException e) {
             throw new RuntimeException("Failed reading results part: " + p.toAbsolutePath(), e);
         }
@@ -304,7 +397,7 @@ public final class MonumentLocateSmokeTest {
             boolean stopServerAfter
     ) {
         Logger log = SpongeMonumentMod.LOGGER;
-        List<MonumentResult> results = new ArrayList<>();
+        ResultStore results = new ResultStore();
 
         final boolean logSpongeRoomsOnly = true; // Set to true to reduce log spam when many monuments have 0 sponge rooms.
 
@@ -324,7 +417,7 @@ public final class MonumentLocateSmokeTest {
 
         // locateStructure radius is in CHUNKS, not blocks. (Ceiling div)
         ChunkPos centerChunk = new ChunkPos(center);
-        List<ChunkPos> candidates = OceanMonumentCoords.findMonumentStartChunks(
+        LongList candidates = OceanMonumentCoords.findMonumentStartChunks(
                 world,
                 centerChunk,
                 radiusChunks,
@@ -336,11 +429,12 @@ public final class MonumentLocateSmokeTest {
                 center.getX(), center.getZ(), radiusBlocks, radiusChunks, excludeRadiusBlocks, excludeRadiusChunks, maxResults);
         log.info("[SpongeMonument] Found {} candidate monument start chunk(s) to analyze.", candidates.size());
 
-        Set<Long> seenChunks = new HashSet<>();
+        LongOpenHashSet seenChunks = new LongOpenHashSet(candidates.size());
         int foundCount = 0;
 
-        for (ChunkPos foundChunk : candidates) {
-            long key = foundChunk.toLong();
+        for (int c = 0; c < candidates.size(); c++) {
+            long key = candidates.get(c);
+            ChunkPos foundChunk = new ChunkPos(PackedXZ.x(key), PackedXZ.z(key));
 
             // Safety against any weird repeats.
             if (!seenChunks.add(key)) {
@@ -355,14 +449,16 @@ public final class MonumentLocateSmokeTest {
 
 
             var id = structureRegistry.getId(monumentStructure);
-            int spongeRooms = MonumentLayoutAnalyzer.countSpongeRoomsFromStart(world, foundChunk, monumentStructure); // Responsible for heap problem
-            if (spongeRooms >= 0){            
+            MonumentProfile profile = MonumentLayoutAnalyzer.analyzeProfileFromStart(world, foundChunk, monumentStructure); // Responsible for heap problem
+            if (profile != null){
+                int spongeRooms = profile.spongeRooms();
                 foundCount++;
-                results.add(new MonumentResult(
+                results.add(
                         foundPos.getX(),
                         foundPos.getZ(),
-                        spongeRooms
-                ));
+                        spongeRooms,
+                        profile
+                );
 
                 if (!logSpongeRoomsOnly || spongeRooms > 0) {
                     log.info("[SpongeMonument]   -> inferredSpongeRooms={}", spongeRooms);
@@ -386,37 +482,16 @@ public final class MonumentLocateSmokeTest {
 
         log.info("[SpongeMonument] Enumeration complete. Found {} structure(s).", foundCount);
 
-        results.sort(
-            Comparator
-                .comparingInt(MonumentResult::spongeRooms).reversed()
-                .thenComparingLong(MonumentResult::distanceSq)
-        );
+        results.sortByRoomsThenDistance();
 
-        String projectDirProp = System.getProperty("spongemonument.projectDir");
-
-        Path baseDir;
-        if (projectDirProp != null && !projectDirProp.isBlank()) {
-            baseDir = Path.of(projectDirProp);
-        } else {
-            // Loom's runServer typically runs with working dir = <project>/run
-            Path cwd = Path.of(System.getProperty("user.dir"));
-            if (cwd.getFileName() != null && cwd.getFileName().toString().equalsIgnoreCase("run") && cwd.getParent() != null) {
-                baseDir = cwd.getParent();
-            } else {
-                baseDir = cwd;
-            }
-        }
+        Path baseDir = SpongePaths.baseDir();
 
         Path out = baseDir.resolve("results.csv");
 
         try (BufferedWriter w = Files.newBufferedWriter(out)) {
-            w.write("x,z,inferred_sponge_rooms\n");
-            for (MonumentResult r : results) {
-                w.write(
-                        r.x() + "," +
-                        r.z() + "," +
-                        r.spongeRooms() + "\n"
-                );
+            w.write(RESULTS_HEADER);
+            for (int i = 0; i < results.size(); i++) {
+                writeResultRow(w, results, i);
             }
             log.info("[SpongeMonument] Wrote {} row(s) to {}", results.size(), out.toAbsolutePath());
         } catch (IOException e) {
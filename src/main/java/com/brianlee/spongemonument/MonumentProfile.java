@@ -0,0 +1,97 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Everything one piece walk learns about a monument: the room graph ({@link MonumentLayout}, which also carries
+ * per-type room counts and core/wing presence) plus the monument's block bounding box.
+ *
+ * Built by {@link MonumentLayoutAnalyzer#analyzeProfileFromStart} in the same pass that counts sponge rooms,
+ * so later questions about a monument never need another generation pass.
+ */
+public record MonumentProfile(
+    MonumentLayout layout,
+    int minX,
+    int minY,
+    int minZ,
+    int maxX,
+    int maxY,
+    int maxZ
+) {
+    public static final MonumentProfile UNKNOWN = of(MonumentLayout.UNKNOWN);
+
+    /** Profile without bounds (e.g. rows read from older results files). */
+    public static MonumentProfile of(MonumentLayout layout) {
+        return new MonumentProfile(layout, 0, 0, 0, -1, -1, -1);
+    }
+
+    /** Wet sponges from sponge rooms (~30 each) plus one from each of the 3 elder guardians. */
+    public static long expectedWetSponges(int spongeRooms) {
+        return spongeRooms * 30L + 3L;
+    }
+
+    public int spongeRooms() {
+        return layout.spongeRooms();
+    }
+
+    public long expectedWetSponges() {
+        return expectedWetSponges(spongeRooms());
+    }
+
+    public int count(MonumentLayout.PieceType type) {
+        return layout.count(type);
+    }
+
+    public boolean hasCoreRoom() {
+        return (layout.roomMask() & MonumentLayout.FLAG_CORE) != 0;
+    }
+
+    public boolean hasWingRooms() {
+        return layout.hasWingRooms();
+    }
+
+    public boolean hasBounds() {
+        return maxX >= minX;
+    }
+
+    // ---- compact form for ResultStore: bounds relative to the result's (x, z) in one long ----
+
+    private static final long PRESENT = 1L << 63;
+
+    /**
+     * Packs the bounds as offsets from (originX, originZ): dx, dz and minY as signed 12-bit fields and the
+     * three spans as 8-bit fields, plus a presence bit. Returns 0 (absent) when the box does not fit.
+     */
+    public long packBounds(int originX, int originZ) {
+        if (!hasBounds()) return 0L;
+        long dx = (long) minX - originX;
+        long dz = (long) minZ - originZ;
+        int sx = maxX - minX, sy = maxY - minY, sz = maxZ - minZ;
+        if (!fitsSigned12(dx) || !fitsSigned12(dz) || !fitsSigned12(minY) || (sx | sy | sz) >>> 8 != 0) return 0L;
+        return PRESENT
+                | (dx & 0xFFF)
+                | (dz & 0xFFF) << 12
+                | ((long) minY & 0xFFF) << 24
+                | (long) sx << 36
+                | (long) sy << 44
+                | (long) sz << 52;
+    }
+
+    public static MonumentProfile unpack(MonumentLayout layout, int originX, int originZ, long packed) {
+        if ((packed & PRESENT) == 0) return of(layout);
+        int minX = originX + signed12(packed);
+        int minZ = originZ + signed12(packed >>> 12);
+        int minY = signed12(packed >>> 24);
+        return new MonumentProfile(layout,
+                minX, minY, minZ,
+                minX + (int) ((packed >>> 36) & 0xFF),
+                minY + (int) ((packed >>> 44) & 0xFF),
+                minZ + (int) ((packed >>> 52) & 0xFF));
+    }
+
+    private static boolean fitsSigned12(long v) {
+        return v >= -2048 && v <= 2047;
+    }
+
+    private static int signed12(long bits) {
+        return (int) (bits << 52 >> 52);
+    }
+}
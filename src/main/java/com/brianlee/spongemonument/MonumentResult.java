@@ -3,9 +3,28 @@ package com.brianlee.spongemonument;
 public record MonumentResult(
     int x,
     int z,
-    int spongeRooms
+    int spongeRooms,
+    MonumentProfile profile
 ) {
+    public MonumentResult(int x, int z, int spongeRooms) {
+        this(x, z, spongeRooms, MonumentProfile.UNKNOWN);
+    }
+
+    public MonumentResult(int x, int z, int spongeRooms, MonumentLayout layout) {
+        this(x, z, spongeRooms, MonumentProfile.of(layout));
+    }
+
+    public MonumentLayout layout() {
+        return profile.layout();
+    }
+
     public long distanceSq() {
-        return (long) x * x + (long) z * z;
+        return distanceSq(0, 0);
+    }
+
+    public long distanceSq(int fromX, int fromZ) {
+        long dx = (long) x - fromX;
+        long dz = (long) z - fromZ;
+        return dx * dx + dz * dz;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Where the coords and analyze phases get their monuments from.
+ *
+ * The phases only need two answers: which chunks might start a monument, and what the monument starting in a
+ * chunk looks like. {@link ServerMonumentSource} answers them from a live world (the normal runAll path);
+ * {@link RegionFileSource} reads an existing world's region files and {@link ReplayMonumentSource} serves a
+ * recorded results file, so the rest of the pipeline (batching, merge, stats, outputs) runs without Minecraft.
+ * {@link SourcePipeline} drives one or more sources through the phases side by side.
+ *
+ * Coordinates are chunk coordinates; candidates are packed with {@link PackedXZ}.
+ */
+public interface MonumentSource {
+
+    /** Short name used in logs, output folders and comparison reports. */
+    String name();
+
+    /** Candidate start chunks inside {@code shape}, truncated to {@code maxResults} when that is positive. */
+    LongList candidates(ScanShape shape, int maxResults);
+
+    /** Profile of the monument starting in this chunk, or null when the candidate turns out to have none. */
+    MonumentProfile analyze(int chunkX, int chunkZ);
+}
@@ -0,0 +1,141 @@
+package com.brianlee.spongemonument;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Forward-only NBT reader for picking a few tags out of large compounds (chunk and level.dat NBT).
+ *
+ * Nothing is materialised: {@link #find} walks the current compound and skips every other entry in place,
+ * so reading {@code structures.starts."minecraft:monument"} out of a chunk allocates a handful of strings
+ * instead of the whole chunk tree. Callers navigate with {@link #next()}/{@link #name()} or {@link #find},
+ * then read the value of the entry they stopped at (a compound is entered simply by reading on).
+ */
+final class NbtStream {
+
+    static final int END = 0;
+    static final int BYTE = 1;
+    static final int SHORT = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int FLOAT = 5;
+    static final int DOUBLE = 6;
+    static final int BYTE_ARRAY = 7;
+    static final int STRING = 8;
+    static final int LIST = 9;
+    static final int COMPOUND = 10;
+    static final int INT_ARRAY = 11;
+    static final int LONG_ARRAY = 12;
+
+    private final DataInputStream in;
+
+    NbtStream(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /** Reads the root tag header; true when the root is a compound (which the caller is now inside). */
+    boolean beginRoot() throws IOException {
+        int type = in.readUnsignedByte();
+        if (type != COMPOUND) return false;
+        skipFully(in.readUnsignedShort()); // root name, usually empty
+        return true;
+    }
+
+    /** Type of the next entry of the current compound ({@link #END} when it is exhausted); read {@link #name()} next. */
+    int next() throws IOException {
+        return in.readUnsignedByte();
+    }
+
+    String name() throws IOException {
+        return in.readUTF();
+    }
+
+    /**
+     * Skips entries of the current compound up to the one called {@code name} with type {@code type} and returns
+     * true, positioned at its value. Returns false (having consumed the compound's END) when there is none.
+     */
+    boolean find(String name, int type) throws IOException {
+        while (true) {
+            int t = next();
+            if (t == END) return false;
+            String n = name();
+            if (t == type && n.equals(name)) return true;
+            skip(t);
+        }
+    }
+
+    /** Skips the rest of the current compound, including its END. */
+    void skipCompound() throws IOException {
+        int t;
+        while ((t = next()) != END) {
+            skipFully(in.readUnsignedShort());
+            skip(t);
+        }
+    }
+
+    /** Skips one value of the given type. */
+    void skip(int type) throws IOException {
+        switch (type) {
+            case BYTE -> skipFully(1);
+            case SHORT -> skipFully(2);
+            case INT, FLOAT -> skipFully(4);
+            case LONG, DOUBLE -> skipFully(8);
+            case BYTE_ARRAY -> skipFully(in.readInt());
+            case STRING -> skipFully(in.readUnsignedShort());
+            case LIST -> {
+                int elementType = in.readUnsignedByte();
+                int length = in.readInt();
+                for (int i = 0; i < length; i++) skip(elementType);
+            }
+            case COMPOUND -> skipCompound();
+            case INT_ARRAY -> skipFully(4L * in.readInt());
+            case LONG_ARRAY -> skipFully(8L * in.readInt());
+            default -> throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    String readString() throws IOException {
+        return in.readUTF();
+    }
+
+    int[] readIntArray() throws IOException {
+        int[] out = new int[in.readInt()];
+        for (int i = 0; i < out.length; i++) out[i] = in.readInt();
+        return out;
+    }
+
+    /** Reads a list header; returns the element type and leaves {@link #listLength()} ready to read. */
+    int listType() throws IOException {
+        return in.readUnsignedByte();
+    }
+
+    int listLength() throws IOException {
+        return in.readInt();
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            // Inflater streams may skip less than asked; skipBytes is bounded by int.
+            int skipped = in.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new EOFException();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+}
@@ -2,15 +2,19 @@ package com.brianlee.spongemonument;
 
 import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.BiomeTags;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
 import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.source.BiomeCoords;
 import net.minecraft.world.biome.source.BiomeSource;
-import net.minecraft.world.gen.noise.NoiseConfig;
+import net.minecraft.world.biome.source.util.MultiNoiseUtil;
+import net.minecraft.world.gen.chunk.ChunkGenerator;
+import net.minecraft.world.gen.structure.Structure;
 
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Chunkbase-style candidate generation for ocean monument start chunks.
@@ -22,28 +26,27 @@ import java.util.List;
 public final class OceanMonumentCoords {
     private OceanMonumentCoords() {}
 
+    // Vanilla RandomSpread placement for monuments (see findMonumentStartChunks).
+    public static final int SPACING = 32;
+    private static final byte SEPARATION = (byte) 5;
+    private static final long SALT = 10387313L;
+    private static final RegistryKey<Structure> MONUMENT_KEY =
+            RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
+
+    // Largest offset of a start chunk inside its region: triangular spread over [0, spacing - separation).
+    public static final int MAX_OFFSET = SPACING - SEPARATION - 1;
+
     /**
-     * Returns candidate monument start chunks within {@code radiusChunks} of {@code centerChunk},
-     * sorted by distance to {@code centerChunk}, truncated to {@code maxResults}.
+     * Returns candidate monument start chunks within {@code radiusChunks} of {@code centerChunk}
+     * as packed chunk coordinates ({@link PackedXZ}) in scan order, truncated to {@code maxResults}.
      */
-    public static List<ChunkPos> findMonumentStartChunks(
+    public static LongList findMonumentStartChunks(
             ServerWorld world,
             ChunkPos centerChunk,
             int radiusChunks,
             int excludeRadiusChunks,
             int maxResults
     ) {
-        final long worldSeed = world.getSeed();
-
-        // Defaults match vanilla RandomSpread placement for monuments.
-        // Match Amidst/Chunkbase types (OceanMonumentProducer_Fixed): salt=long, spacing/separation=byte.
-        final byte spacing = (byte) 32;
-        final byte separation = (byte) 5;
-        final long salt = 10387313L;
-        final boolean triangular = true;
-        final boolean buggyCoordMath = false;
-
-
         // Optional: exclude an inner square (SlimeFinder-style ring search) to speed up large scans.
         // This only affects candidate generation (coords); analysis still validates structures.
         if (excludeRadiusChunks < 0) {
@@ -54,39 +57,52 @@ public final class OceanMonumentCoords {
                     "excludeRadiusChunks (" + excludeRadiusChunks + ") exceeds radiusChunks (" + radiusChunks + ")"
             );
         }
+        return findMonumentStartChunks(world,
+                new ScanShape.Square(centerChunk.x, centerChunk.z, radiusChunks, excludeRadiusChunks), maxResults);
+    }
+
+    /**
+     * Returns candidate monument start chunks inside {@code shape} as packed chunk coordinates ({@link PackedXZ})
+     * in scan order, truncated to {@code maxResults}. Regions that cannot hold a start chunk inside the shape are
+     * skipped before placement, and placements outside it before the biome check.
+     */
+    public static LongList findMonumentStartChunks(ServerWorld world, ScanShape shape, int maxResults) {
+        final long worldSeed = world.getSeed();
+
+        // Defaults match vanilla RandomSpread placement for monuments.
+        // Match Amidst/Chunkbase types (OceanMonumentProducer_Fixed): salt=long, spacing/separation=byte.
+        final byte spacing = (byte) SPACING;
+        final byte separation = SEPARATION;
+        final long salt = SALT;
+        final boolean triangular = true;
+        final boolean buggyCoordMath = false;
 
         // Scan chunk-grid points exactly like Amidst's RegionalStructureProducer:
-        // iterate in steps of `spacing` over the square area, call getPossibleLocation(chunkX, chunkZ),
+        // iterate in steps of `spacing` over the shape's bounding square, call getPossibleLocation(chunkX, chunkZ),
         // then apply the (optional) biome check.
         final int s = Byte.toUnsignedInt(spacing);
 
-        int minChunkX = centerChunk.x - radiusChunks;
-        int maxChunkX = centerChunk.x + radiusChunks;
-        int minChunkZ = centerChunk.z - radiusChunks;
-        int maxChunkZ = centerChunk.z + radiusChunks;
-
         // Align the scan grid to multiples of spacing (in chunk coords).
-        int startX = floorToGrid(minChunkX, s);
-        int startZ = floorToGrid(minChunkZ, s);
+        int startX = floorToGrid(shape.minChunkX(), s);
+        int startZ = floorToGrid(shape.minChunkZ(), s);
 
-        List<ChunkPos> out = new ArrayList<>();
+        LongList out = new LongList();
 
-        for (int chunkX = startX; chunkX <= maxChunkX; chunkX += s) {
-            for (int chunkZ = startZ; chunkZ <= maxChunkZ; chunkZ += s) {
-                ChunkPos start = getPossibleLocation(worldSeed, chunkX, chunkZ, spacing, separation, salt, triangular, buggyCoordMath);
-                if (!isLikelyMonumentBiomeAtChunk(world, start)) {
+        for (int chunkX = startX; chunkX <= shape.maxChunkX(); chunkX += s) {
+            for (int chunkZ = startZ; chunkZ <= shape.maxChunkZ(); chunkZ += s) {
+                // Nowhere in this region lies inside the shape (square corners, annulus hole, outside a polygon).
+                if (!shape.mayHoldRegion(chunkX / s, chunkZ / s)) {
                     continue;
                 }
+                long start = getPossibleLocation(worldSeed, chunkX, chunkZ, spacing, separation, salt, triangular, buggyCoordMath);
+                int candX = PackedXZ.x(start);
+                int candZ = PackedXZ.z(start);
 
-                // Keep within the outer square radius around center, and optionally exclude an inner square.
-                int dx = start.x - centerChunk.x;
-                int dz = start.z - centerChunk.z;
-                int chebyshev = Math.max(Math.abs(dx), Math.abs(dz));
-                if (chebyshev > radiusChunks) {
+                // Range before biome: the biome check is what a candidate costs.
+                if (!shape.contains(candX, candZ)) {
                     continue;
                 }
-                if (excludeRadiusChunks > 0 && chebyshev <= excludeRadiusChunks) {
-                    // Exclude inner square (inclusive) so users can scan in rings.
+                if (!isLikelyMonumentBiomeAtChunk(world, candX, candZ)) {
                     continue;
                 }
 
@@ -97,11 +113,34 @@ public final class OceanMonumentCoords {
         // out.sort(Comparator.comparingLong(c -> distSq(c, centerChunk)));
 
         if (maxResults > 0 && out.size() > maxResults) {
-            return new ArrayList<>(out.subList(0, maxResults));
+            out.truncate(maxResults);
         }
+        out.trimToSize();
         return out;
     }
 
+    /**
+     * Candidate start chunk for one placement region (region coords = chunk coords / spacing), or null when
+     * the biome check rejects it. Used by sampling modes that visit regions out of scan order.
+     */
+    public static ChunkPos candidateForRegion(ServerWorld world, int regionX, int regionZ) {
+        long start = placementForRegion(world.getSeed(), regionX, regionZ);
+        int x = PackedXZ.x(start);
+        int z = PackedXZ.z(start);
+        return isLikelyMonumentBiomeAtChunk(world, x, z) ? new ChunkPos(x, z) : null;
+    }
+
+    /** Placement start chunk of one region (packed with {@link PackedXZ}), before any biome check. */
+    public static long placementForRegion(long worldSeed, int regionX, int regionZ) {
+        return getPossibleLocation(worldSeed, regionX * SPACING, regionZ * SPACING,
+                (byte) SPACING, SEPARATION, SALT, true, false);
+    }
+
+    /** Region coordinate containing {@code chunk} (floor division by the monument spacing). */
+    public static int regionOf(int chunk) {
+        return Math.floorDiv(chunk, SPACING);
+    }
+
     private static int floorToGrid(int v, int step) {
         // floor division for negatives, then multiply back to a grid-aligned coordinate.
         int q = Math.floorDiv(v, step);
@@ -149,9 +188,10 @@ public final class OceanMonumentCoords {
      * Amidst RegionalStructureProducer#getPossibleLocation equivalent.
      *
      * Input: chunk grid coordinate (chunkX, chunkZ) used as the scan point.
-     * Output: the StructureStart-equivalent chunk position for the region containing that scan point.
+     * Output: the StructureStart-equivalent chunk position for the region containing that scan point,
+     * packed with {@link PackedXZ} so the scan loop allocates nothing per region.
      */
-    private static ChunkPos getPossibleLocation(
+    private static long getPossibleLocation(
             long worldSeed,
             int chunkX,
             int chunkZ,
@@ -169,7 +209,7 @@ public final class OceanMonumentCoords {
         value1 = getStructCoordInRegion(random, value1, spacing, separation, triangular);
         value2 = getStructCoordInRegion(random, value2, spacing, separation, triangular);
 
-        return new ChunkPos(value1, value2);
+        return PackedXZ.pack(value1, value2);
     }
 
     /**
@@ -220,7 +260,12 @@ public final class OceanMonumentCoords {
         }
     }
 
-    private static boolean isLikelyMonumentBiomeAtChunk(ServerWorld world, ChunkPos chunk) {
+    private static boolean isLikelyMonumentBiomeAtChunk(ServerWorld world, int chunkX, int chunkZ) {
+        return passesBiomeCheck(world, chunkX, chunkZ, BiomeTier.configured());
+    }
+
+    /** Biome validation of a candidate start chunk at the given strictness (see {@link BiomeTier}). */
+    public static boolean passesBiomeCheck(ServerWorld world, int chunkX, int chunkZ, BiomeTier tier) {
         // Chunkbase/Amidst reduce false positives by validating biomes over two squares:
         //  - STRUCTURE_CENTER_SIZE (16) must be deep-ocean variants
         //  - STRUCTURE_SIZE (29) may include oceans + deep oceans + rivers
@@ -229,10 +274,11 @@ public final class OceanMonumentCoords {
         // We mirror that here by sampling *every* quart cell in the square at quarter resolution.
 
         BiomeSource source = world.getChunkManager().getChunkGenerator().getBiomeSource();
-        NoiseConfig noise = world.getChunkManager().getNoiseConfig();
+        // Compiled climate evaluator (falls back to the generic sampler if it ever disagrees).
+        MultiNoiseUtil.MultiNoiseSampler sampler = CompiledClimateSampler.of(world.getChunkManager().getNoiseConfig());
 
-        int centerX = (chunk.x << 4) + 9;
-        int centerZ = (chunk.z << 4) + 9;
+        int centerX = (chunkX << 4) + 9;
+        int centerZ = (chunkZ << 4) + 9;
 
         // Two checks:
         //  1) Middle-of-chunk biome must be a deep-ocean variant.
@@ -240,12 +286,91 @@ public final class OceanMonumentCoords {
         //     so requiring the *entire* 16-radius square to be deep ocean causes false negatives.
         //     We therefore check only the middle-of-chunk sample for the deep-ocean requirement.
         //  2) The broader footprint (29-radius) must be composed of ocean/deep-ocean/river biomes.
-        if (!checkMiddleOfChunkBiomeQuarterRes(source, noise, centerX, centerZ)) return false;
-        if (!checkBiomeSquareQuarterResExact(source, noise, centerX, centerZ, 29, false)) return false;
+        // CENTER stops after (1), SPARSE samples (2) on a lattice, EXACT samples all of it;
+        // VANILLA replaces both with the structure's own test.
+        return switch (tier) {
+            case CENTER -> checkMiddleOfChunkBiomeQuarterRes(source, sampler, centerX, centerZ);
+            case SPARSE -> checkMiddleOfChunkBiomeQuarterRes(source, sampler, centerX, centerZ)
+                    && checkBiomeSquareQuarterResSparse(source, sampler, centerX, centerZ, 29);
+            case EXACT -> checkMiddleOfChunkBiomeQuarterRes(source, sampler, centerX, centerZ)
+                    && checkBiomeSquareQuarterResExact(source, sampler, centerX, centerZ, 29, false);
+            case VANILLA -> checkVanillaMonumentBiomes(world, source, sampler, chunkX, chunkZ);
+        };
+    }
 
+    /**
+     * The footprint check on a 5x5 lattice of the quart cells {@link #checkBiomeSquareQuarterResExact} visits
+     * (its corners, edges and evenly spaced interior cells): ~1/9 of the samples. Rivers or shallow ocean that
+     * slip between lattice points are caught by the analyze phase as a missing structure start.
+     */
+    private static boolean checkBiomeSquareQuarterResSparse(
+            BiomeSource source,
+            MultiNoiseUtil.MultiNoiseSampler sampler,
+            int centerXBlock,
+            int centerZBlock,
+            int size
+    ) {
+        int left = (centerXBlock - size) >> 2;
+        int top = (centerZBlock - size) >> 2;
+        int spanX = ((centerXBlock + size) >> 2) - left;
+        int spanZ = ((centerZBlock + size) >> 2) - top;
+        int by = 63 >> 2;
+
+        for (int i = 0; i <= 4; i++) {
+            int qx = left + (spanX * i + 2) / 4;
+            for (int j = 0; j <= 4; j++) {
+                int qz = top + (spanZ * j + 2) / 4;
+                if (!isValidMonumentBiome(source.getBiome(qx, by, qz, sampler), false)) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
+    /**
+     * OceanMonumentStructure's own test, in its order: every biome in the 3D area within 29 blocks of
+     * (chunk + 9, sea level, chunk + 9) must be in #required_ocean_monument_surrounding, then the biome at the
+     * chunk center on the ocean floor (OCEAN_FLOOR_WG height) must be one the structure allows. The area loop
+     * starts at the sea-level layer, where a rejection is most likely, and stops at the first bad cell.
+     */
+    private static boolean checkVanillaMonumentBiomes(
+            ServerWorld world,
+            BiomeSource source,
+            MultiNoiseUtil.MultiNoiseSampler sampler,
+            int chunkX,
+            int chunkZ
+    ) {
+        ChunkGenerator generator = world.getChunkManager().getChunkGenerator();
+        int x = (chunkX << 4) + 9;
+        int z = (chunkZ << 4) + 9;
+        int seaLevel = generator.getSeaLevel();
+        int left = BiomeCoords.fromBlock(x - 29), right = BiomeCoords.fromBlock(x + 29);
+        int top = BiomeCoords.fromBlock(z - 29), bottom = BiomeCoords.fromBlock(z + 29);
+        int seaQ = BiomeCoords.fromBlock(seaLevel);
+        int low = BiomeCoords.fromBlock(seaLevel - 29), high = BiomeCoords.fromBlock(seaLevel + 29);
+
+        for (int d = 0; seaQ - d >= low || seaQ + d <= high; d++) {
+            for (int qy : d == 0 ? new int[]{seaQ} : new int[]{seaQ - d, seaQ + d}) {
+                if (qy < low || qy > high) continue;
+                for (int qx = left; qx <= right; qx++) {
+                    for (int qz = top; qz <= bottom; qz++) {
+                        if (!source.getBiome(qx, qy, qz, sampler).isIn(BiomeTags.REQUIRED_OCEAN_MONUMENT_SURROUNDING)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        Structure monument = world.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE).getOrThrow(MONUMENT_KEY).value();
+        int cx = (chunkX << 4) + 8;
+        int cz = (chunkZ << 4) + 8;
+        int y = generator.getHeightInGround(cx, cz, Heightmap.Type.OCEAN_FLOOR_WG, world, world.getChunkManager().getNoiseConfig());
+        RegistryEntry<Biome> center = source.getBiome(BiomeCoords.fromBlock(cx), BiomeCoords.fromBlock(y), BiomeCoords.fromBlock(cz), sampler);
+        return monument.getValidBiomes().contains(center);
+    }
+
     /**
      * Middle-of-chunk biome check at quarter resolution.
      *
@@ -254,7 +379,7 @@ public final class OceanMonumentCoords {
      */
     private static boolean checkMiddleOfChunkBiomeQuarterRes(
             BiomeSource source,
-            NoiseConfig noise,
+            MultiNoiseUtil.MultiNoiseSampler sampler,
             int centerXBlock,
             int centerZBlock
     ) {
@@ -265,7 +390,7 @@ public final class OceanMonumentCoords {
         // 63 blocks -> 15 in quart coords.
         int qy = 63 >> 2;
 
-        RegistryEntry<Biome> entry = source.getBiome(qx, qy, qz, noise.getMultiNoiseSampler());
+        RegistryEntry<Biome> entry = source.getBiome(qx, qy, qz, sampler);
         return isValidMonumentBiome(entry, true);
     }
 
@@ -279,7 +404,7 @@ public final class OceanMonumentCoords {
      */
     private static boolean checkBiomeSquareQuarterResExact(
             BiomeSource source,
-            NoiseConfig noise,
+            MultiNoiseUtil.MultiNoiseSampler sampler,
             int centerXBlock,
             int centerZBlock,
             int size,
@@ -296,7 +421,7 @@ public final class OceanMonumentCoords {
 
         for (int qx = left; qx <= right; qx++) {
             for (int qz = top; qz <= bottom; qz++) {
-                RegistryEntry<Biome> entry = source.getBiome(qx, by, qz, noise.getMultiNoiseSampler());
+                RegistryEntry<Biome> entry = source.getBiome(qx, by, qz, sampler);
                 if (!isValidMonumentBiome(entry, middleChunkRules)) {
                     return false;
                 }
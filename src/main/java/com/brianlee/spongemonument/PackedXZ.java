@@ -0,0 +1,21 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Two ints packed into one long: x in the low 32 bits, z in the high 32 bits.
+ * Same layout as vanilla {@code ChunkPos.toLong}, so packed chunk coordinates round-trip through ChunkPos.
+ */
+public final class PackedXZ {
+    private PackedXZ() {}
+
+    public static long pack(int x, int z) {
+        return (x & 0xFFFFFFFFL) | ((long) z << 32);
+    }
+
+    public static int x(long packed) {
+        return (int) packed;
+    }
+
+    public static int z(long packed) {
+        return (int) (packed >> 32);
+    }
+}
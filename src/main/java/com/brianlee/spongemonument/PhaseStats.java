@@ -0,0 +1,63 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Process-level cost of one server phase ({@code phase_stats_<phase>.properties}), written after the phase's work.
+ *
+ * Every phase is its own JVM, so peak RSS and GC time here are that phase's alone. runAll deletes these files
+ * unless -Dsponge.keepStats=1; the benchmark task keeps them and aggregates them per run (see BenchmarkReport).
+ */
+public final class PhaseStats {
+    private PhaseStats() {}
+
+    public static final String FILE_PREFIX = "phase_stats_";
+
+    public static void write(Path outDir, String phase, long wallMs) {
+        Properties p = new Properties();
+        p.setProperty("phase", phase);
+        p.setProperty("wallMs", Long.toString(wallMs));
+        p.setProperty("uptimeMs", Long.toString(ManagementFactory.getRuntimeMXBean().getUptime()));
+        p.setProperty("peakRssKb", Long.toString(peakRssKb()));
+        p.setProperty("gcMs", Long.toString(gcMillis()));
+        p.setProperty("heapMaxBytes", Long.toString(Runtime.getRuntime().maxMemory()));
+
+        Path out = outDir.resolve(FILE_PREFIX + phase + ".properties");
+        try (OutputStream os = Files.newOutputStream(out)) {
+            p.store(os, "SpongeMonument phase stats");
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] ({}) Failed writing {}", phase, out.getFileName(), e);
+        }
+    }
+
+    /** Peak resident set size (VmHWM) in KiB, or -1 where /proc is unavailable (non-Linux). */
+    static long peakRssKb() {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.isReadable(status)) return -1L;
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return -1L;
+    }
+
+    /** Total time spent in all collectors since JVM start. */
+    static long gcMillis() {
+        long total = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long t = gc.getCollectionTime();
+            if (t > 0) total += t;
+        }
+        return total;
+    }
+}
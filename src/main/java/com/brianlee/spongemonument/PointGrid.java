@@ -0,0 +1,158 @@
+package com.brianlee.spongemonument;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory spatial hash grid over a fixed set of points (indices 0..n-1), for planners that need
+ * repeated neighbour lookups. Non-empty cells are kept as a sorted array of packed cell keys, so
+ * memory is proportional to the number of points, not the area they span.
+ */
+final class PointGrid {
+    private final int[] xs;
+    private final int[] zs;
+    private final int cellShift;
+    private final long[] cellKeys;   // sorted, unique
+    private final int[] cellStart;   // cellKeys.length + 1 offsets into order
+    private final int[] order;       // point indices grouped by cell
+    private final int minCellX, minCellZ, maxCellX, maxCellZ;
+
+    PointGrid(int[] xs, int[] zs, int n, int cellShift) {
+        if (cellShift < MIN_CELL_SHIFT) {
+            throw new IllegalArgumentException("cellShift must be >= " + MIN_CELL_SHIFT);
+        }
+        this.xs = xs;
+        this.zs = zs;
+        this.cellShift = cellShift;
+
+        long[] keyed = new long[n];
+        int mnX = Integer.MAX_VALUE, mnZ = Integer.MAX_VALUE, mxX = Integer.MIN_VALUE, mxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            mnX = Math.min(mnX, xs[i] >> cellShift);
+            mnZ = Math.min(mnZ, zs[i] >> cellShift);
+            mxX = Math.max(mxX, xs[i] >> cellShift);
+            mxZ = Math.max(mxZ, zs[i] >> cellShift);
+            // High bits: cell key, low 31 bits: point index. Sorting groups points by cell.
+            long cell = cellKey(xs[i] >> cellShift, zs[i] >> cellShift);
+            keyed[i] = (cell << 31) | i;
+        }
+        Arrays.sort(keyed);
+        this.minCellX = mnX;
+        this.minCellZ = mnZ;
+        this.maxCellX = mxX;
+        this.maxCellZ = mxZ;
+
+        this.order = new int[n];
+        long[] keys = new long[n];
+        int[] starts = new int[n + 1];
+        int cells = 0;
+        long prev = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long cell = keyed[i] >>> 31;
+            order[i] = (int) (keyed[i] & 0x7FFFFFFFL);
+            if (i == 0 || cell != prev) {
+                keys[cells] = cell;
+                starts[cells] = i;
+                cells++;
+                prev = cell;
+            }
+        }
+        starts[cells] = n;
+        this.cellKeys = Arrays.copyOf(keys, cells);
+        this.cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+
+    // Minecraft coordinates stay within +-30M blocks, so with cells of >= 1024 blocks each cell coordinate
+    // fits in 16 bits and the packed key in 32 bits; (key << 31) | index therefore sorts by cell.
+    static final int MIN_CELL_SHIFT = 10;
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) (cx + (1 << 15)) << 16) | (cz + (1 << 15));
+    }
+
+    private void forEachInCell(int cx, int cz, IntConsumer visitor) {
+        int c = Arrays.binarySearch(cellKeys, cellKey(cx, cz));
+        if (c < 0) return;
+        for (int e = cellStart[c]; e < cellStart[c + 1]; e++) {
+            visitor.accept(order[e]);
+        }
+    }
+
+    /** Visits every point within {@code radius} blocks of (x, z). */
+    void forEachWithin(int x, int z, int radius, IntConsumer visitor) {
+        long r2 = (long) radius * radius;
+        int cx0 = (x - radius) >> cellShift, cx1 = (x + radius) >> cellShift;
+        int cz0 = (z - radius) >> cellShift, cz1 = (z + radius) >> cellShift;
+        for (int cz = cz0; cz <= cz1; cz++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                forEachInCell(cx, cz, i -> {
+                    long dx = xs[i] - x;
+                    long dz = zs[i] - z;
+                    if (dx * dx + dz * dz <= r2) visitor.accept(i);
+                });
+            }
+        }
+    }
+
+    /**
+     * Fills {@code out} with up to {@code out.length} accepted points nearest to (x, z), nearest first.
+     * Returns how many were found. Searches cell rings outward until no closer point can remain; when that
+     * has cost more cell lookups than there are points (sparse data, or {@code accept} rejecting most of it),
+     * it finishes with one linear pass over the points instead.
+     */
+    int nearest(int x, int z, IntPredicate accept, int[] out) {
+        int k = out.length;
+        long[] best = new long[k];
+        int[] found = {0};
+        int ox = x >> cellShift;
+        int oz = z >> cellShift;
+        long cell = 1L << cellShift;
+        int maxRing = maxRingFrom(ox, oz);
+        IntConsumer offer = i -> {
+            if (!accept.test(i)) return;
+            long dx = xs[i] - x;
+            long dz = zs[i] - z;
+            long d = dx * dx + dz * dz;
+            int n = found[0];
+            if (n == k && d >= best[k - 1]) return;
+            int p = (n < k) ? found[0]++ : k - 1;
+            while (p > 0 && best[p - 1] > d) {
+                best[p] = best[p - 1];
+                out[p] = out[p - 1];
+                p--;
+            }
+            best[p] = d;
+            out[p] = i;
+        };
+
+        long lookups = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (found[0] == k) {
+                long reach = Math.max(0, ring - 1) * cell;
+                if (reach * reach > best[k - 1]) break;
+            }
+            lookups += ring == 0 ? 1 : 8L * ring;
+            if (lookups > order.length) {
+                found[0] = 0;
+                for (int i = 0; i < order.length; i++) offer.accept(i);
+                break;
+            }
+            for (int cz = oz - ring; cz <= oz + ring; cz++) {
+                boolean edgeRow = (cz == oz - ring || cz == oz + ring);
+                for (int cx = ox - ring; cx <= ox + ring; cx += edgeRow ? 1 : 2 * ring) {
+                    forEachInCell(cx, cz, offer);
+                    if (ring == 0) break;
+                }
+            }
+        }
+        return found[0];
+    }
+
+    private int maxRingFrom(int ox, int oz) {
+        if (cellKeys.length == 0) return -1;
+        return Math.max(
+                Math.max(Math.abs(ox - minCellX), Math.abs(maxCellX - ox)),
+                Math.max(Math.abs(oz - minCellZ), Math.abs(maxCellZ - oz)));
+    }
+}
@@ -0,0 +1,288 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-region answer cache for the in-game command: placement region (packed with {@link PackedXZ}) ->
+ * sponge rooms of its monument, or {@link #NO_MONUMENT}.
+ *
+ * Hot entries live in an access-ordered LRU of {@code capacity} entries. Everything ever computed is also
+ * appended to a log next to a sorted spill file; the spill file is memory-mapped and binary-searched on LRU
+ * misses, so the heap only holds the LRU while the full history stays on disk (and survives restarts).
+ * The log is merged into the spill file once it holds {@code capacity} entries, and on {@link #close()}.
+ *
+ * Each merge writes a new generation ({@code spongemonument_regions.<n>.bin}) instead of replacing the mapped file,
+ * which Windows refuses until the old mapping is garbage collected; older generations are deleted once unmapped
+ * (or on the next open). A failed merge doubles the threshold for the next attempt, so a persistent failure does not
+ * rewrite the whole spill file on every put.
+ *
+ * Not thread-safe: the command confines every call to its single query thread.
+ */
+public final class RegionCache implements AutoCloseable {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+    public static final int NO_MONUMENT = -1;
+
+    static final String SPILL_PREFIX = "spongemonument_regions.";
+    static final String SPILL_SUFFIX = ".bin";
+    static final String LOG_FILE = "spongemonument_regions.log";
+
+    private static final int MAGIC = 0x53505243; // "SPRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_BYTES = 12; // long key, int rooms
+
+    private final Path dir;
+    private final Path logFile;
+    private final int capacity;
+    private int compactAt;
+    private final Map<Long, Integer> lru;
+
+    private ByteBuffer spill;      // mapped, sorted records; null when empty
+    private int spillCount;
+    private long generation = -1;  // of the mapped spill file; -1 when there is none
+    private DataOutputStream log;
+    private long[] pendingKeys = new long[64];
+    private int[] pendingValues = new int[64];
+    private int pendingCount;
+
+    public RegionCache(Path dir, int capacity) {
+        this.dir = dir;
+        this.logFile = dir.resolve(LOG_FILE);
+        this.capacity = Math.max(16, capacity);
+        this.compactAt = this.capacity;
+        this.lru = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > RegionCache.this.capacity;
+            }
+        };
+        try {
+            Files.createDirectories(dir);
+            generation = latestGeneration();
+            map();
+            // A log left by a crash still holds valid answers: fold it in before serving.
+            readLog();
+            compact();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed opening region cache in " + dir.toAbsolutePath(), e);
+        }
+    }
+
+    /** Sponge rooms for the region, {@link #NO_MONUMENT}, or {@link #MISSING} when never computed. */
+    public int get(long region) {
+        Integer v = lru.get(region);
+        if (v != null) return v;
+        // Evicted from the LRU but not compacted yet; newer than anything in the spill file.
+        int s = MISSING;
+        for (int i = pendingCount - 1; i >= 0; i--) {
+            if (pendingKeys[i] == region) {
+                s = pendingValues[i];
+                break;
+            }
+        }
+        if (s == MISSING) s = spillLookup(region);
+        if (s != MISSING) lru.put(region, s);
+        return s;
+    }
+
+    public void put(long region, int rooms) {
+        lru.put(region, rooms);
+        try {
+            if (log == null) {
+                log = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 12));
+            }
+            log.writeLong(region);
+            log.writeInt(rooms);
+            addPending(region, rooms);
+            if (pendingCount >= compactAt) {
+                compact();
+                compactAt = capacity;
+            }
+        } catch (IOException e) {
+            // The cache is an optimisation; a failed write only means recomputing later. The pending records stay
+            // in memory (and the log), and the next merge waits for twice as many.
+            compactAt = (int) Math.min(Integer.MAX_VALUE, (long) compactAt * 2);
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (command) Region cache write failed; next merge at {} pending", compactAt, e);
+        }
+    }
+
+    public int spilledEntries() {
+        return spillCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            compact();
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (command) Region cache compaction failed", e);
+        }
+    }
+
+    private int spillLookup(long key) {
+        if (spill == null) return MISSING;
+        int lo = 0, hi = spillCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = spill.getLong(HEADER_BYTES + mid * RECORD_BYTES);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return spill.getInt(HEADER_BYTES + mid * RECORD_BYTES + 8);
+        }
+        return MISSING;
+    }
+
+    private void addPending(long key, int value) {
+        if (pendingCount == pendingKeys.length) {
+            pendingKeys = Arrays.copyOf(pendingKeys, pendingCount * 2);
+            pendingValues = Arrays.copyOf(pendingValues, pendingCount * 2);
+        }
+        pendingKeys[pendingCount] = key;
+        pendingValues[pendingCount] = value;
+        pendingCount++;
+    }
+
+    private void readLog() throws IOException {
+        if (!Files.exists(logFile)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile), 1 << 16))) {
+            while (true) {
+                long key = in.readLong();
+                int value = in.readInt();
+                addPending(key, value);
+            }
+        } catch (EOFException ignored) {
+            // End of log (a torn final record is simply dropped).
+        }
+    }
+
+    /** Merges the pending log into the next spill generation, then remaps it and deletes the log and old generations. */
+    private void compact() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        if (pendingCount > 0) {
+            // Sort pending records by key; for duplicate keys the later record wins.
+            Integer[] order = new Integer[pendingCount];
+            for (int i = 0; i < pendingCount; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> pendingKeys[a] != pendingKeys[b]
+                    ? Long.compare(pendingKeys[a], pendingKeys[b])
+                    : Integer.compare(a, b));
+
+            long next = generation + 1;
+            Path tmp = dir.resolve(SPILL_PREFIX + next + SPILL_SUFFIX + ".tmp");
+            int written = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(0); // count, patched below
+                int s = 0, p = 0;
+                while (s < spillCount || p < pendingCount) {
+                    long sk = s < spillCount ? spill.getLong(HEADER_BYTES + s * RECORD_BYTES) : Long.MAX_VALUE;
+                    long pk = p < pendingCount ? pendingKeys[order[p]] : Long.MAX_VALUE;
+                    if (p < pendingCount && (s >= spillCount || pk <= sk)) {
+                        // Take the last pending record for this key.
+                        int last = order[p];
+                        while (p + 1 < pendingCount && pendingKeys[order[p + 1]] == pk) last = order[++p];
+                        p++;
+                        if (s < spillCount && sk == pk) s++;
+                        out.writeLong(pk);
+                        out.writeInt(pendingValues[last]);
+                    } else {
+                        out.writeLong(sk);
+                        out.writeInt(spill.getInt(HEADER_BYTES + s * RECORD_BYTES + 8));
+                        s++;
+                    }
+                    written++;
+                }
+            }
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.write(ByteBuffer.allocate(4).putInt(0, written), 8);
+            }
+            // A fresh name: the current generation stays mapped (and readable) until the new one is in place.
+            Files.move(tmp, spillFile(next), StandardCopyOption.ATOMIC_MOVE);
+            generation = next;
+            pendingCount = 0;
+            map();
+        }
+        Files.deleteIfExists(logFile);
+        deleteOldGenerations();
+    }
+
+    private Path spillFile(long gen) {
+        return dir.resolve(SPILL_PREFIX + gen + SPILL_SUFFIX);
+    }
+
+    /** Highest complete generation on disk, or -1. */
+    private long latestGeneration() throws IOException {
+        long latest = -1;
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                long gen = generationOf(p.getFileName().toString());
+                if (gen > latest) latest = gen;
+            }
+        }
+        return latest;
+    }
+
+    private static long generationOf(String name) {
+        if (!name.startsWith(SPILL_PREFIX) || !name.endsWith(SPILL_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(SPILL_PREFIX.length(), name.length() - SPILL_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Best effort: a generation still mapped by an uncollected buffer (Windows) goes on a later merge or open. */
+    private void deleteOldGenerations() {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                boolean stale = name.startsWith(SPILL_PREFIX)
+                        && (name.endsWith(SPILL_SUFFIX + ".tmp") || (generationOf(name) >= 0 && generationOf(name) < generation));
+                if (!stale) continue;
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (command) Region cache cleanup failed", e);
+        }
+    }
+
+    private void map() throws IOException {
+        spill = null;
+        spillCount = 0;
+        if (generation < 0) return;
+        Path spillFile = spillFile(generation);
+        if (!Files.exists(spillFile)) return;
+        try (FileChannel ch = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return;
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (command) Ignoring unrecognised region cache {}", spillFile.toAbsolutePath());
+                return;
+            }
+            spillCount = buf.getInt(8);
+            spill = buf;
+        }
+    }
+}
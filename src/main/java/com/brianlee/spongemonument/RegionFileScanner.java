@@ -0,0 +1,310 @@
+package com.brianlee.spongemonument;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.structure.OceanMonumentGenerator;
+import net.minecraft.structure.StructurePiece;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.CheckedRandom;
+import net.minecraft.util.math.random.ChunkRandom;
+import net.minecraft.util.math.random.RandomSeed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Counts sponge rooms of the monuments already saved in an existing world's region files, without a server.
+ *
+ * A region file covers 32x32 chunks, exactly one monument placement region, so each {@code r.X.Z.mca} holds at
+ * most one monument start and the seed tells us which chunk: only that chunk's NBT is decompressed, and the
+ * {@link NbtStream} reader skips straight to {@code structures.starts."minecraft:monument"}.
+ *
+ * Vanilla saves only the monument's Base piece (its box and facing); the rooms are rebuilt from the seed when the
+ * chunk loads ({@code OceanMonumentStructure.modifyPiecesOnRead}). We do the same rebuild here after a bare
+ * {@link Bootstrap}, then run the usual piece walk. Region files are scanned in parallel.
+ */
+public final class RegionFileScanner {
+    private RegionFileScanner() {}
+
+    public static final String OUTPUT_FILE = "scan_results.csv";
+
+    private static final Pattern REGION_NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+    private static final int SECTOR_BYTES = 4096;
+
+    enum Outcome { MONUMENT, NO_START, NOT_GENERATED, UNSUPPORTED, ERROR }
+
+    record Saved(Outcome outcome, int chunkX, int chunkZ, int[] box, int facing) {
+        static Saved of(Outcome outcome) {
+            return new Saved(outcome, 0, 0, null, -1);
+        }
+    }
+
+    private record Scanned(Outcome outcome, int x, int z, MonumentProfile profile) {}
+
+    public static void run(Path baseDir) {
+        String worldProp = System.getProperty("sponge.world");
+        if (worldProp == null || worldProp.isBlank()) {
+            throw new IllegalArgumentException("-Dsponge.world=<path to world folder> is required");
+        }
+        Path worldDir = Path.of(worldProp.trim());
+        Path regionDir = worldDir.resolve("region");
+        if (!Files.isDirectory(regionDir)) {
+            throw new IllegalArgumentException("No region folder in " + worldDir.toAbsolutePath());
+        }
+        long seed = worldSeed(worldDir);
+        int threads = SpongeCli.intProp("sponge.scanThreads", Runtime.getRuntime().availableProcessors());
+
+        List<Path> regionFiles;
+        try (var stream = Files.list(regionDir)) {
+            regionFiles = stream.filter(p -> REGION_NAME.matcher(p.getFileName().toString()).matches()).sorted().toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed listing " + regionDir.toAbsolutePath(), e);
+        }
+
+        bootstrap();
+
+        long t0 = System.nanoTime();
+        int[] outcomes = new int[Outcome.values().length];
+        ResultStore results = new ResultStore();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Scanned>> futures = new ArrayList<>(regionFiles.size());
+            for (Path file : regionFiles) {
+                futures.add(pool.submit(() -> scanRegion(file, seed)));
+            }
+            for (Future<Scanned> f : futures) {
+                Scanned s = await(f);
+                outcomes[s.outcome().ordinal()]++;
+                if (s.outcome() == Outcome.MONUMENT) {
+                    results.add(s.x(), s.z(), s.profile().spongeRooms(), s.profile());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        results.sortByRoomsThenDistance();
+        Path out = baseDir.resolve(OUTPUT_FILE);
+        MonumentLocateSmokeTest.writeResultsCsv(out, results);
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        System.out.println("[SpongeMonument] (scan) " + regionFiles.size() + " region file(s) in " + ms + " ms: "
+                + outcomes[Outcome.MONUMENT.ordinal()] + " monument(s), "
+                + outcomes[Outcome.NO_START.ordinal()] + " without a monument, "
+                + outcomes[Outcome.NOT_GENERATED.ordinal()] + " with the candidate chunk not generated, "
+                + outcomes[Outcome.UNSUPPORTED.ordinal()] + " unsupported compression, "
+                + outcomes[Outcome.ERROR.ordinal()] + " unreadable");
+        int[] hist = results.roomHistogram();
+        for (int rooms = hist.length - 1; rooms >= 0; rooms--) {
+            if (hist[rooms] > 0) System.out.println("[SpongeMonument] (scan) " + rooms + " : " + hist[rooms]);
+        }
+        System.out.println("[SpongeMonument] (scan) Wrote " + results.size() + " row(s) -> " + out.toAbsolutePath());
+    }
+
+    /** Monument pieces touch the block/structure registries; a bare bootstrap is enough (idempotent). */
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    private static Scanned scanRegion(Path file, long seed) {
+        Matcher m = REGION_NAME.matcher(file.getFileName().toString());
+        if (!m.matches()) return new Scanned(Outcome.ERROR, 0, 0, null);
+        // Region files and placement regions share the 32-chunk grid (OceanMonumentCoords.SPACING == 32).
+        long start = OceanMonumentCoords.placementForRegion(seed, Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+        int chunkX = PackedXZ.x(start);
+        int chunkZ = PackedXZ.z(start);
+
+        Saved saved;
+        try {
+            saved = readMonumentStart(file, chunkX, chunkZ);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SpongeMonument] (scan) Skipping " + file.getFileName() + ": " + e);
+            return new Scanned(Outcome.ERROR, 0, 0, null);
+        }
+        if (saved.outcome() != Outcome.MONUMENT) return new Scanned(saved.outcome(), 0, 0, null);
+
+        MonumentProfile profile = MonumentLayoutAnalyzer.analyzeProfileFromBase(
+                regenerateBase(seed, saved.chunkX(), saved.chunkZ(), saved.box(), saved.facing()));
+        return new Scanned(Outcome.MONUMENT, saved.chunkX() * 16, saved.chunkZ() * 16, profile);
+    }
+
+    /**
+     * Rebuilds the Base piece exactly as {@code OceanMonumentStructure.modifyPiecesOnRead} does on chunk load:
+     * same carver-seeded random, one direction roll (kept even when the saved facing wins, so the room rolls
+     * that follow line up), then a fresh Base at the saved corner.
+     */
+    static StructurePiece regenerateBase(long seed, int chunkX, int chunkZ, int[] box, int facing) {
+        ChunkRandom random = new ChunkRandom(new CheckedRandom(RandomSeed.getSeed()));
+        random.setCarverSeed(seed, chunkX, chunkZ);
+        Direction rolled = Direction.Type.HORIZONTAL.random(random);
+        Direction orientation = facing >= 0 ? Direction.fromHorizontalQuarterTurns(facing) : rolled;
+        return new OceanMonumentGenerator.Base(random, box[0], box[2], orientation);
+    }
+
+    /** Reads the saved monument start of one chunk through a read-only mapping of its region file. */
+    static Saved readMonumentStart(Path file, int chunkX, int chunkZ) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < 2L * SECTOR_BYTES) return Saved.of(Outcome.NOT_GENERATED);
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int location = map.getInt(((chunkX & 31) + (chunkZ & 31) * 32) * 4);
+            long offset = (long) (location >>> 8) * SECTOR_BYTES;
+            if (location == 0) return Saved.of(Outcome.NOT_GENERATED);
+            if (offset + 5 > size) throw new IOException("chunk " + chunkX + "," + chunkZ + " points past end of file");
+
+            int length = map.getInt((int) offset);
+            int compression = map.get((int) offset + 4);
+            InputStream raw;
+            if ((compression & 0x80) != 0) {
+                // Oversized chunk stored next to the region file.
+                raw = Files.newInputStream(file.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc"));
+            } else {
+                if (length < 1 || offset + 4 + length > size) throw new IOException("chunk " + chunkX + "," + chunkZ + " has a bad length");
+                raw = new ByteBufferInputStream(map.slice((int) offset + 5, length - 1));
+            }
+
+            try (InputStream in = switch (compression & 0x7F) {
+                case 1 -> new GZIPInputStream(raw, 8192);
+                case 2 -> new InflaterInputStream(raw, new java.util.zip.Inflater(), 8192);
+                case 3 -> raw;
+                default -> null; // 4 = LZ4 (region-file-compression=lz4), not bundled here
+            }) {
+                if (in == null) {
+                    raw.close();
+                    return Saved.of(Outcome.UNSUPPORTED);
+                }
+                return readStart(new NbtStream(in));
+            }
+        }
+    }
+
+    private static Saved readStart(NbtStream nbt) throws IOException {
+        if (!nbt.beginRoot()
+                || !nbt.find("structures", NbtStream.COMPOUND)
+                || !nbt.find("starts", NbtStream.COMPOUND)
+                || !nbt.find("minecraft:monument", NbtStream.COMPOUND)) {
+            return Saved.of(Outcome.NO_START);
+        }
+
+        String id = null;
+        int chunkX = 0, chunkZ = 0;
+        int[] box = null;
+        int facing = -1;
+        int type;
+        while ((type = nbt.next()) != NbtStream.END) {
+            String name = nbt.name();
+            if (type == NbtStream.STRING && name.equals("id")) {
+                id = nbt.readString();
+            } else if (type == NbtStream.INT && name.equals("ChunkX")) {
+                chunkX = nbt.readInt();
+            } else if (type == NbtStream.INT && name.equals("ChunkZ")) {
+                chunkZ = nbt.readInt();
+            } else if (type == NbtStream.LIST && name.equals("Children")) {
+                int elementType = nbt.listType();
+                int count = nbt.listLength();
+                for (int i = 0; i < count; i++) {
+                    if (i == 0 && elementType == NbtStream.COMPOUND) {
+                        // The first (and only saved) child is the Base: BB = minX,minY,minZ,maxX,maxY,maxZ; O = facing.
+                        int t;
+                        while ((t = nbt.next()) != NbtStream.END) {
+                            String n = nbt.name();
+                            if (t == NbtStream.INT_ARRAY && n.equals("BB")) box = nbt.readIntArray();
+                            else if (t == NbtStream.INT && n.equals("O")) facing = nbt.readInt();
+                            else nbt.skip(t);
+                        }
+                    } else {
+                        nbt.skip(elementType);
+                    }
+                }
+            } else {
+                nbt.skip(type);
+            }
+        }
+
+        // Empty starts are saved with id "INVALID".
+        if (id == null || id.equals("INVALID") || box == null || box.length < 6) return Saved.of(Outcome.NO_START);
+        return new Saved(Outcome.MONUMENT, chunkX, chunkZ, box, facing);
+    }
+
+    /** Seed from -Dsponge.seed, else from level.dat ({@code Data.WorldGenSettings.seed}). */
+    static long worldSeed(Path worldDir) {
+        String prop = System.getProperty("sponge.seed");
+        if (prop != null && !prop.isBlank()) {
+            try {
+                return Long.parseLong(prop.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("-Dsponge.seed must be a long (got '" + prop + "')");
+            }
+        }
+        Path levelDat = worldDir.resolve("level.dat");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(levelDat), 8192)) {
+            NbtStream nbt = new NbtStream(in);
+            if (nbt.beginRoot() && nbt.find("Data", NbtStream.COMPOUND)
+                    && nbt.find("WorldGenSettings", NbtStream.COMPOUND)
+                    && nbt.find("seed", NbtStream.LONG)) {
+                return nbt.readLong();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed reading the seed from " + levelDat.toAbsolutePath()
+                    + " (" + e.getMessage() + "); pass -Dsponge.seed=<worldSeed>");
+        }
+        throw new IllegalStateException("No seed in " + levelDat.toAbsolutePath() + "; pass -Dsponge.seed=<worldSeed>");
+    }
+
+    private static <T> T await(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning region files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** InputStream over a (mapped) buffer slice, so inflation reads the page cache directly. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        ByteBufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An existing world's region files as a source (see {@link RegionFileScanner} for the file format side).
+ *
+ * Candidates are the placement chunks of regions that have a region file; analysis reads the saved monument
+ * start and rebuilds its rooms from the seed. Regions nobody has visited simply have no candidates, so the
+ * result covers exactly the generated part of the world.
+ */
+public final class RegionFileSource implements MonumentSource {
+
+    private final Path regionDir;
+    private final long seed;
+
+    public RegionFileSource(Path worldDir) {
+        this.regionDir = worldDir.resolve("region");
+        if (!Files.isDirectory(regionDir)) {
+            throw new IllegalArgumentException("No region folder in " + worldDir.toAbsolutePath());
+        }
+        this.seed = RegionFileScanner.worldSeed(worldDir);
+        RegionFileScanner.bootstrap();
+    }
+
+    @Override
+    public String name() {
+        return "region";
+    }
+
+    @Override
+    public LongList candidates(ScanShape shape, int maxResults) {
+        LongList out = new LongList();
+        for (int rx = OceanMonumentCoords.regionOf(shape.minChunkX()); rx <= OceanMonumentCoords.regionOf(shape.maxChunkX()); rx++) {
+            for (int rz = OceanMonumentCoords.regionOf(shape.minChunkZ()); rz <= OceanMonumentCoords.regionOf(shape.maxChunkZ()); rz++) {
+                if (!shape.mayHoldRegion(rx, rz) || !Files.exists(regionFile(rx, rz))) continue;
+                long start = OceanMonumentCoords.placementForRegion(seed, rx, rz);
+                if (shape.contains(PackedXZ.x(start), PackedXZ.z(start))) {
+                    out.add(start);
+                }
+            }
+        }
+        if (maxResults > 0 && out.size() > maxResults) out.truncate(maxResults);
+        out.trimToSize();
+        return out;
+    }
+
+    @Override
+    public MonumentProfile analyze(int chunkX, int chunkZ) {
+        // Region files share the 32-chunk placement grid.
+        Path file = regionFile(chunkX >> 5, chunkZ >> 5);
+        if (!Files.exists(file)) return null;
+
+        RegionFileScanner.Saved saved;
+        try {
+            saved = RegionFileScanner.readMonumentStart(file, chunkX, chunkZ);
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (region) Unreadable chunk {},{} in {}", chunkX, chunkZ, file.getFileName(), e);
+            return null;
+        }
+        if (saved.outcome() != RegionFileScanner.Outcome.MONUMENT) return null;
+        return MonumentLayoutAnalyzer.analyzeProfileFromBase(
+                RegionFileScanner.regenerateBase(seed, saved.chunkX(), saved.chunkZ(), saved.box(), saved.facing()));
+    }
+
+    private Path regionFile(int regionX, int regionZ) {
+        return regionDir.resolve("r." + regionX + "." + regionZ + ".mca");
+    }
+}
@@ -0,0 +1,75 @@
+package com.brianlee.spongemonument;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serves a recorded results file (results.csv, scan_results.csv or a results part) as if it were a world:
+ * candidates are the recorded monuments in the ring, and analysis returns the recorded profile.
+ *
+ * Nothing is generated, so a replay measures the pipeline itself (candidate files, batching, merge, outputs)
+ * and gives golden outputs to compare other sources against. Recorded files only hold real monuments, so a
+ * replay never sees the biome-filter false positives a live run has to reject.
+ */
+public final class ReplayMonumentSource implements MonumentSource {
+
+    private final ResultStore recorded;
+    // Open-addressing map: packed start chunk -> recorded index + 1 (0 marks an empty slot).
+    private final long[] keys;
+    private final int[] slots;
+    private final int mask;
+
+    public ReplayMonumentSource(Path file) {
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Replay file not found: " + file.toAbsolutePath());
+        }
+        recorded = new ResultStore();
+        MonumentLocateSmokeTest.readResultsCsv(file, recorded);
+
+        int cap = Integer.highestOneBit(Math.max(4, recorded.size() * 2) - 1) << 1;
+        keys = new long[cap];
+        slots = new int[cap];
+        mask = cap - 1;
+        for (int i = 0; i < recorded.size(); i++) {
+            long key = PackedXZ.pack(recorded.x(i) >> 4, recorded.z(i) >> 4);
+            int s = slot(key);
+            while (slots[s] != 0 && keys[s] != key) s = (s + 1) & mask;
+            keys[s] = key;
+            slots[s] = i + 1; // a duplicate row replaces the earlier one
+        }
+    }
+
+    @Override
+    public String name() {
+        return "replay";
+    }
+
+    @Override
+    public LongList candidates(ScanShape shape, int maxResults) {
+        LongList out = new LongList();
+        for (int i = 0; i < recorded.size(); i++) {
+            int chunkX = recorded.x(i) >> 4;
+            int chunkZ = recorded.z(i) >> 4;
+            if (shape.contains(chunkX, chunkZ)) {
+                out.add(PackedXZ.pack(chunkX, chunkZ));
+            }
+        }
+        if (maxResults > 0 && out.size() > maxResults) out.truncate(maxResults);
+        out.trimToSize();
+        return out;
+    }
+
+    @Override
+    public MonumentProfile analyze(int chunkX, int chunkZ) {
+        long key = PackedXZ.pack(chunkX, chunkZ);
+        for (int s = slot(key); slots[s] != 0; s = (s + 1) & mask) {
+            if (keys[s] == key) return recorded.profile(slots[s] - 1);
+        }
+        return null;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
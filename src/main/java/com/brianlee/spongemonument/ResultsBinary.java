@@ -0,0 +1,88 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-width binary copy of results.csv (results.bin), written by the merge phase.
+ *
+ * Layout (big-endian): magic "SPGR", version, row count, then one record per monument:
+ * {@code int x, int z, byte spongeRooms, long roomMask, long spongeMask, long typeTable},
+ * then (version 2+) the bounding box {@code int minX, minY, minZ, maxX, maxY, maxZ} (max < min when unknown).
+ * Rows keep the same order as results.csv. Version 1 files are still readable.
+ */
+public final class ResultsBinary {
+    private ResultsBinary() {}
+
+    public static final String FILE_NAME = "results.bin";
+
+    private static final int MAGIC = 0x53504752; // "SPGR"
+    private static final int VERSION = 2;
+
+    public static void write(Path out, ResultStore results) {
+        try {
+            Files.createDirectories(out.getParent());
+            try (DataOutputStream d = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+                d.writeInt(MAGIC);
+                d.writeInt(VERSION);
+                d.writeInt(results.size());
+                for (int i = 0; i < results.size(); i++) {
+                    d.writeInt(results.x(i));
+                    d.writeInt(results.z(i));
+                    d.writeByte(results.spongeRooms(i));
+                    d.writeLong(results.roomMask(i));
+                    d.writeLong(results.spongeMask(i));
+                    d.writeLong(results.typeTable(i));
+                    MonumentProfile p = results.profile(i);
+                    d.writeInt(p.minX());
+                    d.writeInt(p.minY());
+                    d.writeInt(p.minZ());
+                    d.writeInt(p.maxX());
+                    d.writeInt(p.maxY());
+                    d.writeInt(p.maxZ());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing results: " + out.toAbsolutePath(), e);
+        }
+    }
+
+    /** Streams every row to {@code sink} without holding the file in memory. Returns the row count. */
+    public static int forEach(Path in, Consumer<MonumentResult> sink) {
+        try (DataInputStream d = new DataInputStream(new BufferedInputStream(Files.newInputStream(in), 1 << 16))) {
+            if (d.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a SpongeMonument results file: " + in.toAbsolutePath());
+            }
+            int version = d.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalStateException("Unsupported results.bin version " + version + ": " + in.toAbsolutePath());
+            }
+            int count = d.readInt();
+            for (int i = 0; i < count; i++) {
+                int x = d.readInt();
+                int z = d.readInt();
+                int rooms = d.readUnsignedByte();
+                long roomMask = d.readLong();
+                long spongeMask = d.readLong();
+                long typeTable = d.readLong();
+                MonumentLayout layout = new MonumentLayout(rooms, roomMask, spongeMask, typeTable);
+                MonumentProfile profile = version >= 2
+                        ? new MonumentProfile(layout, d.readInt(), d.readInt(), d.readInt(), d.readInt(), d.readInt(), d.readInt())
+                        : MonumentProfile.of(layout);
+                sink.accept(new MonumentResult(x, z, rooms, profile));
+            }
+            return count;
+        } catch (EOFException e) {
+            throw new IllegalStateException("Truncated results file: " + in.toAbsolutePath(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading results: " + in.toAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Raid route planner over merged results (results.bin).
+ *
+ * Builds an open tour from a start point: each step greedily takes, among the nearest unvisited
+ * monuments, the one with the best wet sponges per block for that leg; the tour is then shortened with
+ * neighbour-list 2-opt, and the freed budget is spent extending it again. Neighbour lookups go through
+ * a {@link PointGrid}, so planning stays near-linear in the number of candidates.
+ *
+ * -Dsponge.x / -Dsponge.z: start point (overworld blocks, default 0,0)
+ * -Dsponge.minRooms: minimum sponge rooms per stop (default 4)
+ * -Dsponge.maxStops: stop budget (default 0 = unlimited)
+ * -Dsponge.maxDistance: travel budget in blocks of the travel dimension (default 0 = unlimited)
+ * -Dsponge.nether=1: plan travel through the Nether (distances and output coordinates divided by 8)
+ */
+public final class RoutePlanner {
+    private RoutePlanner() {}
+
+    public static final String FILE_NAME = "route.csv";
+
+    // Candidates considered at each greedy step / neighbour list size for 2-opt.
+    private static final int GREEDY_CANDIDATES = 8;
+    private static final int TWO_OPT_NEIGHBOURS = 10;
+    private static final int MAX_ROUNDS = 8;
+
+    public static void run(Path baseDir) {
+        Path bin = baseDir.resolve(ResultsBinary.FILE_NAME);
+        if (!Files.exists(bin)) {
+            throw new IllegalStateException(bin.getFileName() + " not found in " + baseDir.toAbsolutePath() + " (run runAll first)");
+        }
+
+        int startX = SpongeCli.intProp("sponge.x", 0);
+        int startZ = SpongeCli.intProp("sponge.z", 0);
+        int minRooms = SpongeCli.intProp("sponge.minRooms", 4);
+        int maxStops = SpongeCli.intProp("sponge.maxStops", 0);
+        long maxDistance = SpongeCli.intProp("sponge.maxDistance", 0);
+        boolean nether = !System.getProperty("sponge.nether", "0").trim().equals("0");
+        if (maxStops <= 0 && maxDistance <= 0) {
+            throw new IllegalArgumentException("Set -Dsponge.maxStops and/or -Dsponge.maxDistance to bound the route");
+        }
+
+        long t0 = System.nanoTime();
+
+        // Only the filtered monuments are kept in memory.
+        int[][] xs = {new int[1024]};
+        int[][] zs = {new int[1024]};
+        int[][] rooms = {new int[1024]};
+        int[] n = {0};
+        ResultsBinary.forEach(bin, r -> {
+            if (r.spongeRooms() < minRooms) return;
+            if (n[0] == xs[0].length) {
+                xs[0] = Arrays.copyOf(xs[0], n[0] * 2);
+                zs[0] = Arrays.copyOf(zs[0], n[0] * 2);
+                rooms[0] = Arrays.copyOf(rooms[0], n[0] * 2);
+            }
+            xs[0][n[0]] = r.x();
+            zs[0][n[0]] = r.z();
+            rooms[0][n[0]] = r.spongeRooms();
+            n[0]++;
+        });
+
+        Plan plan = new Plan(xs[0], zs[0], rooms[0], n[0], startX, startZ, nether ? 8 : 1, maxStops, maxDistance);
+        plan.solve();
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        Path out = baseDir.resolve(FILE_NAME);
+        plan.write(out);
+
+        long sponges = plan.totalSponges();
+        double length = plan.length();
+        System.out.println("[SpongeMonument] (route) " + plan.size() + " stop(s) from " + n[0] + " candidate(s) with >= " + minRooms
+                + " rooms; travel " + Math.round(length) + " " + (nether ? "nether " : "") + "blocks; ~" + sponges + " wet sponges ("
+                + String.format("%.3f", length > 0 ? sponges / length : 0.0) + " per block) in " + ms + " ms -> " + out.toAbsolutePath());
+    }
+
+    static final class Plan {
+        private final int[] worldX, worldZ;   // overworld block coordinates (for output)
+        private final int[] xs, zs, rooms;    // travel-dimension coordinates (Nether = overworld / 8)
+        private final int scale;
+        private final int n;
+        private final int startX, startZ;
+        private final int maxStops;
+        private final long maxDistance;
+        private final PointGrid grid;
+        private final boolean[] used;
+
+        // Route as candidate indices; position 0 of the path is the implicit start point.
+        private int[] route = new int[16];
+        private int size;
+
+        Plan(int[] worldX, int[] worldZ, int[] rooms, int n, int startX, int startZ, int scale, int maxStops, long maxDistance) {
+            this.worldX = worldX;
+            this.worldZ = worldZ;
+            this.rooms = rooms;
+            this.n = n;
+            this.scale = scale;
+            // Plan in travel-dimension coordinates so every distance is in blocks actually travelled.
+            this.xs = new int[n];
+            this.zs = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = Math.floorDiv(worldX[i], scale);
+                zs[i] = Math.floorDiv(worldZ[i], scale);
+            }
+            this.startX = Math.floorDiv(startX, scale);
+            this.startZ = Math.floorDiv(startZ, scale);
+            this.maxStops = maxStops;
+            this.maxDistance = maxDistance;
+            this.grid = new PointGrid(xs, zs, n, 11);
+            this.used = new boolean[n];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void solve() {
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                int before = size;
+                extendGreedy();
+                if (size == before && round > 0) break;
+                twoOpt();
+            }
+            trimToBudget();
+        }
+
+        private double px(int pos) {
+            return pos < 0 ? startX : xs[route[pos]];
+        }
+
+        private double pz(int pos) {
+            return pos < 0 ? startZ : zs[route[pos]];
+        }
+
+        /** Distance between route positions a and b (-1 is the start point). */
+        private double dist(int a, int b) {
+            return Math.hypot(px(a) - px(b), pz(a) - pz(b));
+        }
+
+        double length() {
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += dist(i - 1, i);
+            }
+            return total;
+        }
+
+        long totalSponges() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += MonumentProfile.expectedWetSponges(rooms[route[i]]);
+            }
+            return total;
+        }
+
+        private boolean withinBudget(int stops, double length) {
+            return (maxStops <= 0 || stops <= maxStops) && (maxDistance <= 0 || length <= maxDistance);
+        }
+
+        private void extendGreedy() {
+            int[] near = new int[GREEDY_CANDIDATES];
+            double length = length();
+            while (true) {
+                int cx = (int) px(size - 1);
+                int cz = (int) pz(size - 1);
+                int found = grid.nearest(cx, cz, i -> !used[i], near);
+                int best = -1;
+                double bestScore = -1;
+                double bestLeg = 0;
+                for (int j = 0; j < found; j++) {
+                    int c = near[j];
+                    double leg = Math.hypot(xs[c] - cx, zs[c] - cz);
+                    if (!withinBudget(size + 1, length + leg)) continue;
+                    double score = MonumentProfile.expectedWetSponges(rooms[c]) / Math.max(1.0, leg);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = c;
+                        bestLeg = leg;
+                    }
+                }
+                if (best < 0) return;
+                if (size == route.length) {
+                    route = Arrays.copyOf(route, size * 2);
+                }
+                route[size++] = best;
+                used[best] = true;
+                length += bestLeg;
+            }
+        }
+
+        /**
+         * Open-path 2-opt restricted to each stop's nearest route neighbours: reversing route[i+1..j]
+         * replaces edges (i, i+1) and (j, j+1) with (i, j) and (i+1, j+1); j + 1 may be past the end.
+         */
+        private void twoOpt() {
+            if (size < 3) return;
+            int[] posOf = new int[n];
+            Arrays.fill(posOf, -1);
+            int[] near = new int[TWO_OPT_NEIGHBOURS];
+            boolean improved = true;
+            int passes = 0;
+            while (improved && passes++ < 50) {
+                improved = false;
+                for (int p = 0; p < size; p++) posOf[route[p]] = p;
+                for (int i = -1; i < size - 1; i++) {
+                    int ix = (int) px(i), iz = (int) pz(i);
+                    int found = grid.nearest(ix, iz, c -> posOf[c] >= 0, near);
+                    for (int q = 0; q < found; q++) {
+                        int j = posOf[near[q]];
+                        if (j <= i + 1) continue;
+                        double removed = dist(i, i + 1) + (j + 1 < size ? dist(j, j + 1) : 0);
+                        double added = dist(i, j) + (j + 1 < size ? dist(i + 1, j + 1) : 0);
+                        if (added + 1e-9 < removed) {
+                            reverse(i + 1, j);
+                            for (int p = i + 1; p <= j; p++) posOf[route[p]] = p;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void reverse(int a, int b) {
+            while (a < b) {
+                int t = route[a];
+                route[a++] = route[b];
+                route[b--] = t;
+            }
+        }
+
+        private void trimToBudget() {
+            double length = 0;
+            for (int i = 0; i < size; i++) {
+                double leg = dist(i - 1, i);
+                if (!withinBudget(i + 1, length + leg)) {
+                    for (int j = i; j < size; j++) used[route[j]] = false;
+                    size = i;
+                    return;
+                }
+                length += leg;
+            }
+        }
+
+        void write(Path out) {
+            boolean nether = scale != 1;
+            try (BufferedWriter w = Files.newBufferedWriter(out)) {
+                w.write(nether
+                        ? "stop,nether_x,nether_z,x,z,inferred_sponge_rooms,leg_blocks,total_blocks\n"
+                        : "stop,x,z,inferred_sponge_rooms,leg_blocks,total_blocks\n");
+                double total = 0;
+                for (int i = 0; i < size; i++) {
+                    int c = route[i];
+                    double leg = dist(i - 1, i);
+                    total += leg;
+                    String pos = nether
+                            ? xs[c] + "," + zs[c] + "," + worldX[c] + "," + worldZ[c]
+                            : worldX[c] + "," + worldZ[c];
+                    w.write((i + 1) + "," + pos + "," + rooms[c] + "," + Math.round(leg) + "," + Math.round(total) + "\n");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed writing route: " + out.toAbsolutePath(), e);
+            }
+        }
+    }
+}
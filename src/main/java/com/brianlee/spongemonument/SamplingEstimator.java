@@ -0,0 +1,246 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.Structure;
+
+/**
+ * Sampling mode (-Dsponge.mode=sample): estimates the sponge-room distribution over a huge area
+ * without analyzing every monument.
+ *
+ * Placement regions of the scan area are visited in a uniformly random order without replacement; each
+ * region's candidate is validated and analyzed exactly like the full pipeline. Every
+ * {@link #CHECK_EVERY} monuments the per-room-count proportions get 95% (or -Dsponge.sampleConfidence)
+ * Wilson intervals, and sampling stops once every interval half-width is within -Dsponge.samplePrecision.
+ */
+public final class SamplingEstimator {
+    private SamplingEstimator() {}
+
+    public static final String FILE_NAME = "sample_estimate.csv";
+
+    private static final int CHECK_EVERY = 50;
+    private static final int MIN_MONUMENTS = 100;
+    private static final int MAX_ROOMS = 32;
+
+    public static void run(ServerWorld world, ScanShape shape, Path outDir) {
+        Logger log = SpongeMonumentMod.LOGGER;
+
+        double precision = Double.parseDouble(System.getProperty("sponge.samplePrecision", "0.01"));
+        double confidence = Double.parseDouble(System.getProperty("sponge.sampleConfidence", "0.95"));
+        int maxMonuments = Integer.getInteger("sponge.sampleMax", 20000);
+        long sampleSeed = Long.getLong("sponge.sampleSeed", 1L);
+        double z = normalQuantile(1.0 - (1.0 - confidence) / 2.0);
+
+        // Regions of the shape's bounding square (same grid as findMonumentStartChunks).
+        int minRegionX = OceanMonumentCoords.regionOf(shape.minChunkX());
+        int minRegionZ = OceanMonumentCoords.regionOf(shape.minChunkZ());
+        int sideX = OceanMonumentCoords.regionOf(shape.maxChunkX()) - minRegionX + 1;
+        int sideZ = OceanMonumentCoords.regionOf(shape.maxChunkZ()) - minRegionZ + 1;
+        long totalRegions = (long) sideX * sideZ;
+
+        RegistryKey<Structure> monumentKey = RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
+        Structure monumentStructure = world.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE).getOrThrow(monumentKey).value();
+
+        log.info("[SpongeMonument] (sample) shape={} regions={} precision={} confidence={} maxMonuments={}",
+                shape.describe(), totalRegions, precision, confidence, maxMonuments);
+
+        long[] hist = new long[MAX_ROOMS + 1];
+        long monuments = 0;
+        long regionsDrawn = 0;     // every region taken from the permutation, including culled ones
+        long regionsVisited = 0;   // regions whose candidate falls inside the scan area
+        long falsePositives = 0;
+        long t0 = System.nanoTime();
+
+        RegionPermutation order = new RegionPermutation(totalRegions, sampleSeed);
+        boolean converged = false;
+        while (order.hasNext() && monuments < maxMonuments) {
+            long r = order.next();
+            int rx = minRegionX + (int) (r % sideX);
+            int rz = minRegionZ + (int) (r / sideX);
+            regionsDrawn++;
+
+            // Placement landed outside the area: not part of the population (and no biome check spent on it).
+            if (!shape.mayHoldRegion(rx, rz)) continue;
+            long start = OceanMonumentCoords.placementForRegion(world.getSeed(), rx, rz);
+            if (!shape.contains(PackedXZ.x(start), PackedXZ.z(start))) continue;
+            regionsVisited++;
+
+            ChunkPos candidate = OceanMonumentCoords.candidateForRegion(world, rx, rz);
+            if (candidate == null) continue;
+
+            MonumentLayout layout = MonumentLayoutAnalyzer.analyzeLayoutFromStart(world, candidate, monumentStructure);
+            if (layout == null) {
+                falsePositives++;
+                continue;
+            }
+            hist[Math.min(MAX_ROOMS, layout.spongeRooms())]++;
+            monuments++;
+
+            if (monuments >= MIN_MONUMENTS && monuments % CHECK_EVERY == 0) {
+                double worst = 0;
+                for (long c : hist) {
+                    worst = Math.max(worst, wilsonHalfWidth(c, monuments, z));
+                }
+                log.info("[SpongeMonument] (sample) monuments={} regions={} worstHalfWidth={}",
+                        monuments, regionsVisited, String.format(Locale.ROOT, "%.4f", worst));
+                if (worst <= precision) {
+                    converged = true;
+                    break;
+                }
+            }
+        }
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        log.info("[SpongeMonument] (sample) {} after {} monument(s) from {} region(s) ({} biome false positive(s)) in {} ms",
+                converged ? "Converged" : "Stopped", monuments, regionsVisited, falsePositives, ms);
+
+        if (monuments == 0) {
+            log.warn("[SpongeMonument] (sample) No monuments sampled; nothing to estimate.");
+            return;
+        }
+
+        // Monuments per drawn region of the bounding square, scaled to all of it. Regions whose placement missed
+        // the shape count as drawn with no monument, so this holds for any shape (and at a square's edge).
+        double perRegion = monuments / (double) regionsDrawn;
+        double perRegionHalf = wilsonHalfWidth(monuments, regionsDrawn, z);
+        log.info("[SpongeMonument] (sample) Estimated monuments in area: {} (+/- {})",
+                Math.round(perRegion * totalRegions), Math.round(perRegionHalf * totalRegions));
+
+        Path out = outDir.resolve(FILE_NAME);
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("sponge_rooms,count,proportion,ci_low,ci_high,at_least_proportion,at_least_ci_low,at_least_ci_high\n");
+            log.info("[SpongeMonument] ===== Estimated sponge room distribution ({}% CI) =====", Math.round(confidence * 100));
+            long atLeast = 0;
+            for (int rooms = MAX_ROOMS; rooms >= 0; rooms--) {
+                atLeast += hist[rooms];
+                if (hist[rooms] == 0) continue;
+                double p = hist[rooms] / (double) monuments;
+                double[] ci = wilson(hist[rooms], monuments, z);
+                double pa = atLeast / (double) monuments;
+                double[] cia = wilson(atLeast, monuments, z);
+                w.write(String.format(Locale.ROOT, "%d,%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f%n",
+                        rooms, hist[rooms], p, ci[0], ci[1], pa, cia[0], cia[1]));
+                log.info("[SpongeMonument] {} : {}% [{}%, {}%]   (>= {}: {}% [{}%, {}%])",
+                        rooms, pct(p), pct(ci[0]), pct(ci[1]), rooms, pct(pa), pct(cia[0]), pct(cia[1]));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed writing sample estimate: " + out.toAbsolutePath(), e);
+        }
+        log.info("[SpongeMonument] (sample) Wrote {}", out.toAbsolutePath());
+    }
+
+    private static String pct(double p) {
+        return String.format(Locale.ROOT, "%.3f", p * 100.0);
+    }
+
+    /** Wilson score interval for a binomial proportion. */
+    static double[] wilson(long successes, long n, double z) {
+        double p = successes / (double) n;
+        double z2 = z * z;
+        double denom = 1.0 + z2 / n;
+        double center = (p + z2 / (2.0 * n)) / denom;
+        double half = (z / denom) * Math.sqrt(p * (1.0 - p) / n + z2 / (4.0 * n * n));
+        return new double[] {Math.max(0.0, center - half), Math.min(1.0, center + half)};
+    }
+
+    static double wilsonHalfWidth(long successes, long n, double z) {
+        double[] ci = wilson(successes, n, z);
+        return (ci[1] - ci[0]) / 2.0;
+    }
+
+    /** Inverse standard normal CDF (Acklam's rational approximation, |error| < 1.2e-9). */
+    static double normalQuantile(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double q, r;
+        if (p < 0.02425) {
+            q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - 0.02425) {
+            q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        q = p - 0.5;
+        r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    /**
+     * Uniform random order over [0, size) without replacement and without a visited set: a keyed Feistel network
+     * over the next even power of two (at most 4 * size), skipping values >= size (cycle walking).
+     *
+     * Every output bit depends on every input bit, unlike a power-of-two LCG whose low bits (the region's x) repeat
+     * with short periods; the sampling intervals assume consecutive draws are independent.
+     */
+    static final class RegionPermutation {
+        private static final int ROUNDS = 6;
+
+        private final long size;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] keys = new long[ROUNDS];
+        private long emitted;
+
+        RegionPermutation(long size, long seed) {
+            this.size = size;
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(1L, size - 1));
+            this.halfBits = Math.max(1, (bits + 1) / 2);
+            this.halfMask = (1L << halfBits) - 1;
+            SplittableRandom rnd = new SplittableRandom(seed);
+            for (int r = 0; r < ROUNDS; r++) keys[r] = rnd.nextLong();
+        }
+
+        boolean hasNext() {
+            return emitted < size;
+        }
+
+        long next() {
+            long v = permute(emitted++);
+            while (v >= size) {
+                v = permute(v);
+            }
+            return v;
+        }
+
+        private long permute(long v) {
+            long left = v >>> halfBits;
+            long right = v & halfMask;
+            for (long key : keys) {
+                long f = mix(right ^ key) & halfMask;
+                long t = right;
+                right = left ^ f;
+                left = t;
+            }
+            return (left << halfBits) | right;
+        }
+
+        // Stafford variant 13 (the SplittableRandom / murmur3 finalizer).
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
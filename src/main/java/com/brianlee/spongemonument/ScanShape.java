@@ -0,0 +1,300 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The area a coords phase covers, in chunk coordinates of monument start chunks.
+ *
+ * Every scan used to be a Chebyshev square (with an optional inner square cut out). A circle wastes none of the
+ * square's corners (~21% of its regions), an annulus is the round version of a ring search, and a polygon covers
+ * an arbitrary area such as a server's claimed or explored land. The coords phase culls twice: a placement region
+ * is skipped when the rectangle its start chunk can land in misses the shape ({@link #mayHoldRegion}), and a
+ * placement outside the shape ({@link #contains}) is dropped before any biome sampling.
+ *
+ * Selected with -Dsponge.shape=square|circle|annulus|polygon (see {@link #configured}); {@link #spec()} and
+ * {@link #parse} round-trip a shape through a single line for checkpoints.
+ */
+public interface ScanShape {
+
+    /** True when a monument starting in this chunk belongs to the scan. */
+    boolean contains(int chunkX, int chunkZ);
+
+    /** False only when no chunk of the (inclusive) rectangle can be {@link #contains contained}. */
+    boolean intersects(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ);
+
+    int minChunkX();
+
+    int minChunkZ();
+
+    int maxChunkX();
+
+    int maxChunkZ();
+
+    /** One-line form read back by {@link #parse}. */
+    String spec();
+
+    /** Human-readable summary for logs. */
+    String describe();
+
+    /** False when the region's start chunk cannot land inside the shape, wherever the placement puts it. */
+    default boolean mayHoldRegion(int regionX, int regionZ) {
+        int x0 = regionX * OceanMonumentCoords.SPACING;
+        int z0 = regionZ * OceanMonumentCoords.SPACING;
+        return intersects(x0, z0, x0 + OceanMonumentCoords.MAX_OFFSET, z0 + OceanMonumentCoords.MAX_OFFSET);
+    }
+
+    /**
+     * The shape selected by -Dsponge.shape (default square) around a block position, with the radii rounded up to
+     * whole chunks like every scan before it. circle and annulus are the same shape (annulus just reads better
+     * with an excludeRadiusBlocks); polygon ignores the radii and reads -Dsponge.polygon.
+     */
+    static ScanShape configured(int centerX, int centerZ, int radiusBlocks, int excludeRadiusBlocks) {
+        int radiusChunks = Math.max(1, (radiusBlocks + 15) / 16);
+        int excludeRadiusChunks = Math.min(radiusChunks, Math.max(0, (excludeRadiusBlocks + 15) / 16));
+        String kind = System.getProperty("sponge.shape", "square").trim().toLowerCase(Locale.ROOT);
+        return switch (kind) {
+            case "square" -> new Square(centerX >> 4, centerZ >> 4, radiusChunks, excludeRadiusChunks);
+            case "circle", "annulus" -> new Circle(centerX >> 4, centerZ >> 4, radiusChunks, excludeRadiusChunks);
+            case "polygon" -> Polygon.of(readPolygonProperty());
+            default -> throw new IllegalArgumentException("Unknown sponge.shape '" + kind + "' (expected square|circle|annulus|polygon)");
+        };
+    }
+
+    /** Reads a {@link #spec()} line back. */
+    static ScanShape parse(String spec) {
+        String[] parts = spec.trim().split(" ", 2);
+        String args = parts.length > 1 ? parts[1].trim() : "";
+        return switch (parts[0]) {
+            case "square", "circle" -> {
+                String[] n = args.split(",");
+                if (n.length != 4) throw new IllegalArgumentException("Bad shape spec '" + spec + "'");
+                int cx = Integer.parseInt(n[0].trim()), cz = Integer.parseInt(n[1].trim());
+                int r = Integer.parseInt(n[2].trim()), e = Integer.parseInt(n[3].trim());
+                yield parts[0].equals("square") ? new Square(cx, cz, r, e) : new Circle(cx, cz, r, e);
+            }
+            case "polygon" -> Polygon.of(args);
+            default -> throw new IllegalArgumentException("Bad shape spec '" + spec + "'");
+        };
+    }
+
+    /**
+     * -Dsponge.polygon: either inline block vertices {@code x,z;x,z;...} or a file (relative to the project
+     * directory) with one {@code x,z} vertex per line; blank lines and {@code #} comments are ignored.
+     */
+    private static String readPolygonProperty() {
+        String value = System.getProperty("sponge.polygon", "").trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("-Dsponge.shape=polygon needs -Dsponge.polygon=x,z;x,z;... or a vertex file");
+        }
+        if (value.contains(";")) return value;
+        Path file = SpongePaths.baseDir().resolve(value);
+        try {
+            StringBuilder vertices = new StringBuilder();
+            for (String line : Files.readAllLines(file)) {
+                String s = line.strip();
+                if (s.isEmpty() || s.startsWith("#")) continue;
+                if (!vertices.isEmpty()) vertices.append(';');
+                vertices.append(s);
+            }
+            return vertices.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading polygon file: " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /** The original scan area: Chebyshev distance in (radius, ...] outside an inclusive inner square. */
+    record Square(int centerChunkX, int centerChunkZ, int radiusChunks, int excludeRadiusChunks) implements ScanShape {
+        public Square {
+            if (excludeRadiusChunks < 0 || excludeRadiusChunks > radiusChunks) {
+                throw new IllegalArgumentException("excludeRadiusChunks must be between 0 and radiusChunks");
+            }
+        }
+
+        @Override
+        public boolean contains(int chunkX, int chunkZ) {
+            int chebyshev = Math.max(Math.abs(chunkX - centerChunkX), Math.abs(chunkZ - centerChunkZ));
+            return chebyshev <= radiusChunks && (excludeRadiusChunks == 0 || chebyshev > excludeRadiusChunks);
+        }
+
+        @Override
+        public boolean intersects(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            if (maxChunkX < minChunkX() || minChunkX > maxChunkX() || maxChunkZ < minChunkZ() || minChunkZ > maxChunkZ()) {
+                return false;
+            }
+            // Entirely inside the hole?
+            return excludeRadiusChunks == 0
+                    || minChunkX < centerChunkX - excludeRadiusChunks || maxChunkX > centerChunkX + excludeRadiusChunks
+                    || minChunkZ < centerChunkZ - excludeRadiusChunks || maxChunkZ > centerChunkZ + excludeRadiusChunks;
+        }
+
+        @Override public int minChunkX() { return centerChunkX - radiusChunks; }
+        @Override public int minChunkZ() { return centerChunkZ - radiusChunks; }
+        @Override public int maxChunkX() { return centerChunkX + radiusChunks; }
+        @Override public int maxChunkZ() { return centerChunkZ + radiusChunks; }
+
+        @Override
+        public String spec() {
+            return "square " + centerChunkX + "," + centerChunkZ + "," + radiusChunks + "," + excludeRadiusChunks;
+        }
+
+        @Override
+        public String describe() {
+            return "square radius=" + radiusChunks * 16 + (excludeRadiusChunks > 0 ? " exclude=" + excludeRadiusChunks * 16 : "")
+                    + " blocks around chunk (" + centerChunkX + ", " + centerChunkZ + ")";
+        }
+    }
+
+    /** Euclidean disc of {@code radiusChunks}, minus the inclusive disc of {@code excludeRadiusChunks} (an annulus). */
+    record Circle(int centerChunkX, int centerChunkZ, int radiusChunks, int excludeRadiusChunks) implements ScanShape {
+        public Circle {
+            if (excludeRadiusChunks < 0 || excludeRadiusChunks > radiusChunks) {
+                throw new IllegalArgumentException("excludeRadiusChunks must be between 0 and radiusChunks");
+            }
+        }
+
+        @Override
+        public boolean contains(int chunkX, int chunkZ) {
+            long dx = chunkX - centerChunkX, dz = chunkZ - centerChunkZ;
+            long d2 = dx * dx + dz * dz;
+            return d2 <= (long) radiusChunks * radiusChunks
+                    && (excludeRadiusChunks == 0 || d2 > (long) excludeRadiusChunks * excludeRadiusChunks);
+        }
+
+        @Override
+        public boolean intersects(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            // Nearest point of the rectangle must be inside the outer disc...
+            long nx = (long) Math.max(minChunkX, Math.min(maxChunkX, centerChunkX)) - centerChunkX;
+            long nz = (long) Math.max(minChunkZ, Math.min(maxChunkZ, centerChunkZ)) - centerChunkZ;
+            if (nx * nx + nz * nz > (long) radiusChunks * radiusChunks) return false;
+            if (excludeRadiusChunks == 0) return true;
+            // ...and its farthest corner outside the hole.
+            long fx = Math.max(Math.abs((long) minChunkX - centerChunkX), Math.abs((long) maxChunkX - centerChunkX));
+            long fz = Math.max(Math.abs((long) minChunkZ - centerChunkZ), Math.abs((long) maxChunkZ - centerChunkZ));
+            return fx * fx + fz * fz > (long) excludeRadiusChunks * excludeRadiusChunks;
+        }
+
+        @Override public int minChunkX() { return centerChunkX - radiusChunks; }
+        @Override public int minChunkZ() { return centerChunkZ - radiusChunks; }
+        @Override public int maxChunkX() { return centerChunkX + radiusChunks; }
+        @Override public int maxChunkZ() { return centerChunkZ + radiusChunks; }
+
+        @Override
+        public String spec() {
+            return "circle " + centerChunkX + "," + centerChunkZ + "," + radiusChunks + "," + excludeRadiusChunks;
+        }
+
+        @Override
+        public String describe() {
+            return (excludeRadiusChunks > 0 ? "annulus" : "circle") + " radius=" + radiusChunks * 16
+                    + (excludeRadiusChunks > 0 ? " exclude=" + excludeRadiusChunks * 16 : "")
+                    + " blocks around chunk (" + centerChunkX + ", " + centerChunkZ + ")";
+        }
+    }
+
+    /**
+     * A simple polygon in block coordinates (even-odd rule). A chunk belongs to it when the chunk's corner,
+     * the x/z written to results.csv, does.
+     */
+    record Polygon(long[] xs, long[] zs, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) implements ScanShape {
+
+        /** Parses block vertices {@code x,z;x,z;...} (at least three). */
+        static Polygon of(String vertices) {
+            List<long[]> points = new ArrayList<>();
+            for (String vertex : vertices.split(";")) {
+                if (vertex.isBlank()) continue;
+                String[] xz = vertex.split(",");
+                if (xz.length != 2) throw new IllegalArgumentException("Polygon vertex '" + vertex.trim() + "' is not x,z");
+                points.add(new long[]{Long.parseLong(xz[0].trim()), Long.parseLong(xz[1].trim())});
+            }
+            if (points.size() < 3) throw new IllegalArgumentException("A polygon needs at least 3 vertices, got " + points.size());
+            long[] xs = new long[points.size()], zs = new long[points.size()];
+            long minX = Long.MAX_VALUE, minZ = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxZ = Long.MIN_VALUE;
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = points.get(i)[0];
+                zs[i] = points.get(i)[1];
+                minX = Math.min(minX, xs[i]);
+                minZ = Math.min(minZ, zs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxZ = Math.max(maxZ, zs[i]);
+            }
+            return new Polygon(xs, zs, (int) Math.floorDiv(minX, 16), (int) Math.floorDiv(minZ, 16),
+                    (int) Math.floorDiv(maxX, 16), (int) Math.floorDiv(maxZ, 16));
+        }
+
+        @Override
+        public boolean contains(int chunkX, int chunkZ) {
+            return containsBlock((long) chunkX * 16, (long) chunkZ * 16);
+        }
+
+        @Override
+        public boolean intersects(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            if (maxChunkX < this.minChunkX || minChunkX > this.maxChunkX || maxChunkZ < this.minChunkZ || minChunkZ > this.maxChunkZ) {
+                return false;
+            }
+            // The chunk corners of the rectangle span this block rectangle.
+            long x0 = (long) minChunkX * 16, z0 = (long) minChunkZ * 16;
+            long x1 = (long) maxChunkX * 16, z1 = (long) maxChunkZ * 16;
+            if (containsBlock(x0, z0) || containsBlock(x1, z0) || containsBlock(x0, z1) || containsBlock(x1, z1)) return true;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if (xs[i] >= x0 && xs[i] <= x1 && zs[i] >= z0 && zs[i] <= z1) return true;
+                if (segmentHitsRect(xs[j], zs[j], xs[i], zs[i], x0, z0, x1, z1)) return true;
+            }
+            // No corner inside, no vertex inside, no edge crossing: the two are disjoint. (A true above can still
+            // cover no 16-block grid point; contains() then drops the placement before the biome check.)
+            return false;
+        }
+
+        private boolean containsBlock(long x, long z) {
+            boolean inside = false;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if ((zs[i] > z) != (zs[j] > z)) {
+                    // x of the edge at height z, compared without division.
+                    long lhs = (x - xs[i]) * (zs[j] - zs[i]);
+                    long rhs = (xs[j] - xs[i]) * (z - zs[i]);
+                    if (zs[j] > zs[i] ? lhs < rhs : lhs > rhs) inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        private static boolean segmentHitsRect(long ax, long az, long bx, long bz, long x0, long z0, long x1, long z1) {
+            return segmentsCross(ax, az, bx, bz, x0, z0, x1, z0) || segmentsCross(ax, az, bx, bz, x1, z0, x1, z1)
+                    || segmentsCross(ax, az, bx, bz, x1, z1, x0, z1) || segmentsCross(ax, az, bx, bz, x0, z1, x0, z0);
+        }
+
+        private static boolean segmentsCross(long ax, long az, long bx, long bz, long cx, long cz, long dx, long dz) {
+            long d1 = Long.signum(cross(cx, cz, dx, dz, ax, az));
+            long d2 = Long.signum(cross(cx, cz, dx, dz, bx, bz));
+            long d3 = Long.signum(cross(ax, az, bx, bz, cx, cz));
+            long d4 = Long.signum(cross(ax, az, bx, bz, dx, dz));
+            return d1 * d2 <= 0 && d3 * d4 <= 0
+                    && Math.max(ax, bx) >= Math.min(cx, dx) && Math.max(cx, dx) >= Math.min(ax, bx)
+                    && Math.max(az, bz) >= Math.min(cz, dz) && Math.max(cz, dz) >= Math.min(az, bz);
+        }
+
+        private static long cross(long ox, long oz, long ax, long az, long bx, long bz) {
+            return (ax - ox) * (bz - oz) - (az - oz) * (bx - ox);
+        }
+
+        @Override
+        public String spec() {
+            StringBuilder sb = new StringBuilder("polygon ");
+            for (int i = 0; i < xs.length; i++) {
+                if (i > 0) sb.append(';');
+                sb.append(xs[i]).append(',').append(zs[i]);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String describe() {
+            return "polygon of " + xs.length + " vertices, blocks x " + minChunkX * 16 + ".." + (maxChunkX * 16 + 15)
+                    + " z " + minChunkZ * 16 + ".." + (maxChunkZ * 16 + 15);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.brianlee.spongemonument;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.Structure;
+
+/** The live-world source: seed placement plus biome checks for candidates, generated structure starts for rooms. */
+public final class ServerMonumentSource implements MonumentSource {
+
+    private final ServerWorld world;
+    private final Structure monument;
+
+    public ServerMonumentSource(ServerWorld world) {
+        this.world = world;
+        RegistryKey<Structure> monumentKey = RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
+        this.monument = world.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE).getOrThrow(monumentKey).value();
+    }
+
+    @Override
+    public String name() {
+        return "server";
+    }
+
+    @Override
+    public LongList candidates(ScanShape shape, int maxResults) {
+        return OceanMonumentCoords.findMonumentStartChunks(world, shape, maxResults);
+    }
+
+    @Override
+    public MonumentProfile analyze(int chunkX, int chunkZ) {
+        return MonumentLayoutAnalyzer.analyzeProfileFromStart(world, new ChunkPos(chunkX, chunkZ), monument);
+    }
+}
@@ -0,0 +1,120 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs the coords, analyze and merge phases in one JVM against one or more {@link MonumentSource}s and prints
+ * them side by side: phase times, candidate and monument counts, and whether each source's room distribution
+ * matches the first one's.
+ *
+ * Each source writes the usual phase outputs (results.csv/.bin/.idx, merge_stats, phase_stats_*) into
+ * {@code pipeline/<source>/}, so the files can be diffed and fed to the other tools.
+ *
+ * -Dsponge.source=replay|region[,...] (default replay)
+ * -Dsponge.replayFile (default results.csv), -Dsponge.world for region
+ * -Dsponge.radiusBlocks/excludeRadiusBlocks/shape/polygon/maxResults/batchSize as for runAll
+ */
+public final class SourcePipeline {
+    private SourcePipeline() {}
+
+    public static final String DIR_NAME = "pipeline";
+
+    private record Row(String source, int candidates, int monuments, long coordsMs, long analyzeMs, long mergeMs, Properties stats) {}
+
+    public static void run(Path baseDir) {
+        String[] names = System.getProperty("sponge.source", "replay").split(",");
+        int radiusBlocks = SpongeCli.intProp("sponge.radiusBlocks", 20000);
+        int excludeRadiusBlocks = SpongeCli.intProp("sponge.excludeRadiusBlocks", 0);
+        int maxResults = SpongeCli.intProp("sponge.maxResults", 100000);
+        int batchSize = Math.max(1, SpongeCli.intProp("sponge.batchSize", 1000));
+        if (excludeRadiusBlocks < 0 || excludeRadiusBlocks > radiusBlocks) {
+            throw new IllegalArgumentException("-Dsponge.excludeRadiusBlocks must be between 0 and sponge.radiusBlocks");
+        }
+
+        ScanShape shape = ScanShape.configured(0, 0, radiusBlocks, excludeRadiusBlocks);
+
+        List<Row> rows = new ArrayList<>();
+        for (String name : names) {
+            MonumentSource source = open(name.trim().toLowerCase(), baseDir);
+            Path outDir = baseDir.resolve(DIR_NAME).resolve(source.name());
+            Path candidatesPath = outDir.resolve("candidates.csv");
+
+            long t0 = System.nanoTime();
+            int candidates = MonumentLocateSmokeTest.runCoordsOnly(source, shape, maxResults, candidatesPath);
+            long coordsMs = elapsedMs(t0);
+            PhaseStats.write(outDir, "coords", coordsMs);
+
+            t0 = System.nanoTime();
+            for (int batchStart = 0; batchStart < candidates; batchStart += batchSize) {
+                MonumentLocateSmokeTest.runAnalyzeBatch(source, candidatesPath, batchStart, batchSize, outDir);
+            }
+            long analyzeMs = elapsedMs(t0);
+            PhaseStats.write(outDir, "analyze", analyzeMs);
+
+            t0 = System.nanoTime();
+            MonumentLocateSmokeTest.runMerge(outDir);
+            long mergeMs = elapsedMs(t0);
+            PhaseStats.write(outDir, "merge", mergeMs);
+
+            Properties stats = readStats(outDir.resolve(MonumentLocateSmokeTest.MERGE_STATS_FILE));
+            int monuments = Integer.parseInt(stats.getProperty("monuments", "0"));
+            rows.add(new Row(source.name(), candidates, monuments, coordsMs, analyzeMs, mergeMs, stats));
+        }
+
+        System.out.println("[SpongeMonument] (pipeline) source,candidates,monuments,coords_ms,analyze_ms,merge_ms,distribution");
+        Properties reference = rows.get(0).stats();
+        for (Row r : rows) {
+            String distribution = r == rows.get(0) ? "reference" : sameDistribution(reference, r.stats()) ? "match" : "DIFFERS";
+            System.out.println("[SpongeMonument] (pipeline) " + r.source() + "," + r.candidates() + "," + r.monuments() + ","
+                    + r.coordsMs() + "," + r.analyzeMs() + "," + r.mergeMs() + "," + distribution);
+        }
+        System.out.println("[SpongeMonument] (pipeline) Outputs in " + baseDir.resolve(DIR_NAME).toAbsolutePath());
+    }
+
+    private static MonumentSource open(String name, Path baseDir) {
+        return switch (name) {
+            case "replay" -> new ReplayMonumentSource(
+                    baseDir.resolve(System.getProperty("sponge.replayFile", "results.csv").trim()));
+            case "region" -> {
+                String world = System.getProperty("sponge.world");
+                if (world == null || world.isBlank()) {
+                    throw new IllegalArgumentException("-Dsponge.world=<path to world folder> is required for sponge.source=region");
+                }
+                yield new RegionFileSource(Path.of(world.trim()));
+            }
+            // The server source needs a running world: use runAll for it.
+            default -> throw new IllegalArgumentException("Unknown sponge.source '" + name + "' (expected replay|region)");
+        };
+    }
+
+    private static boolean sameDistribution(Properties a, Properties b) {
+        for (String key : a.stringPropertyNames()) {
+            if (key.startsWith("hist.") && !a.getProperty(key).equals(b.getProperty(key))) return false;
+        }
+        for (String key : b.stringPropertyNames()) {
+            if (key.startsWith("hist.") && !a.containsKey(key)) return false;
+        }
+        return true;
+    }
+
+    private static Properties readStats(Path file) {
+        Properties p = new Properties();
+        if (!Files.exists(file)) return p; // merge found nothing to merge
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + file.toAbsolutePath(), e);
+        }
+        return p;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+}
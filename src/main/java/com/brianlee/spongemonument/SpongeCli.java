@@ -0,0 +1,45 @@
+package com.brianlee.spongemonument;
+
+/**
+ * Entry point for the standalone (no Minecraft server) tools that work on merged results.
+ *
+ * Gradle runs this through JavaExec tasks (e.g. spongeQuery), which forward every -Dsponge.* flag,
+ * so tools read their options from system properties exactly like the server phases do.
+ */
+public final class SpongeCli {
+    private SpongeCli() {}
+
+    public static void main(String[] args) {
+        String tool = args.length > 0 ? args[0].trim().toLowerCase() : "";
+        try {
+            switch (tool) {
+                case "query" -> SpongeQuery.run(SpongePaths.baseDir());
+                case "route" -> RoutePlanner.run(SpongePaths.baseDir());
+                case "cluster" -> ClusterFinder.run(SpongePaths.baseDir());
+                case "export" -> WaypointExporter.run(SpongePaths.baseDir());
+                case "heatmap" -> HeatmapRenderer.run(SpongePaths.baseDir());
+                case "benchmark" -> BenchmarkReport.run(SpongePaths.baseDir());
+                case "scan" -> RegionFileScanner.run(SpongePaths.baseDir());
+                case "pipeline" -> SourcePipeline.run(SpongePaths.baseDir());
+                case "enqueue" -> WorkQueue.enqueue(SpongePaths.baseDir());
+                default -> {
+                    System.err.println("[SpongeMonument] Unknown tool '" + tool + "' (expected query|route|cluster|export|heatmap|benchmark|scan|pipeline|enqueue)");
+                    System.exit(2);
+                }
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println("[SpongeMonument] (" + tool + ") " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static int intProp(String key, int def) {
+        String v = System.getProperty(key);
+        if (v == null || v.isBlank()) return def;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("-D" + key + " must be an integer (got '" + v + "')");
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.brianlee.spongemonument;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /sponge near <minRooms> [count]}: the nearest monuments with at least {@code minRooms} sponge rooms.
+ *
+ * Nothing runs on the server thread and no chunk is loaded or created. A query walks placement regions in
+ * rings around the caller on a dedicated query thread and rebuilds each monument detached, the way the CLI
+ * scanner does: placement, the structure's own biome test ({@link BiomeTier#VANILLA}), then the Base piece
+ * from the carver-seeded random. The reply is posted back with {@code server.execute}.
+ * Every answered region goes into a {@link RegionCache} under the world's data folder, so repeated and
+ * overlapping queries cost only the regions nobody has asked about yet.
+ */
+public final class SpongeCommand {
+
+    private static final int REGION_BLOCKS = OceanMonumentCoords.SPACING * 16;
+
+    // -Dsponge.commandRadius (blocks, default 10000): how far a query searches before giving up.
+    private static final int MAX_RADIUS_BLOCKS = Math.max(REGION_BLOCKS, Integer.getInteger("sponge.commandRadius", 10000));
+    // -Dsponge.commandCacheSize (default 65536): regions held in memory; older answers are read from disk.
+    private static final int CACHE_SIZE = Integer.getInteger("sponge.commandCacheSize", 65536);
+
+    private static volatile SpongeCommand active;
+
+    private final MinecraftServer server;
+    private final ServerWorld overworld;
+    private final ExecutorService queryThread;
+    private final Set<String> busy = ConcurrentHashMap.newKeySet();
+    private RegionCache cache; // query thread only
+
+    private SpongeCommand(MinecraftServer server) {
+        this.server = server;
+        this.overworld = server.getOverworld();
+        this.queryThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "SpongeMonument-Query");
+            t.setDaemon(true);
+            return t;
+        });
+        Path dataDir = server.getSavePath(WorldSavePath.ROOT).resolve("data");
+        queryThread.execute(() -> {
+            cache = new RegionCache(dataDir, CACHE_SIZE);
+            SpongeMonumentMod.LOGGER.info("[SpongeMonument] (command) Region cache ready: {} regions on disk in {}",
+                    cache.spilledEntries(), dataDir.toAbsolutePath());
+        });
+    }
+
+    /** Registers the command tree (including {@code /sponge scan}); queries answer "not ready" until {@link #start} has run. */
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> dispatcher.register(
+                CommandManager.literal("sponge")
+                        .then(CommandManager.literal("near")
+                                .then(CommandManager.argument("minRooms", IntegerArgumentType.integer(0, MonumentLayout.SLOT_COUNT))
+                                        .executes(ctx -> near(ctx, 3))
+                                        .then(CommandManager.argument("count", IntegerArgumentType.integer(1, 20))
+                                                .executes(ctx -> near(ctx, IntegerArgumentType.getInteger(ctx, "count")))))
+                        .then(TickScanScheduler.commandTree())));
+    }
+
+    public static void start(MinecraftServer server) {
+        active = new SpongeCommand(server);
+    }
+
+    public static void stop() {
+        SpongeCommand command = active;
+        active = null;
+        if (command == null) return;
+        // Runs after any queued query step, so the cache is compacted exactly once, on its own thread.
+        command.queryThread.execute(() -> {
+            if (command.cache != null) command.cache.close();
+        });
+        command.queryThread.shutdown();
+        try {
+            command.queryThread.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int near(CommandContext<ServerCommandSource> ctx, int count) {
+        ServerCommandSource source = ctx.getSource();
+        SpongeCommand command = active;
+        if (command == null) {
+            source.sendError(Text.literal("SpongeMonument is not ready yet."));
+            return 0;
+        }
+
+        // Monuments only exist in the overworld; from the Nether, search around the matching overworld spot.
+        Vec3d pos = source.getPosition();
+        double scale = source.getWorld().getRegistryKey() == World.NETHER ? 8.0 : 1.0;
+        if (source.getWorld().getRegistryKey() != World.OVERWORLD && scale == 1.0) {
+            source.sendError(Text.literal("Monuments only generate in the overworld."));
+            return 0;
+        }
+
+        String owner = source.getName();
+        if (!command.busy.add(owner)) {
+            source.sendError(Text.literal("A monument search is already running for you."));
+            return 0;
+        }
+
+        int minRooms = IntegerArgumentType.getInteger(ctx, "minRooms");
+        NearQuery query = new NearQuery(command, source, owner,
+                (int) Math.floor(pos.x * scale), (int) Math.floor(pos.z * scale), minRooms, count);
+        source.sendFeedback(() -> Text.literal("Searching for monuments with " + minRooms + "+ sponge rooms..."), false);
+        command.queryThread.execute(query::step);
+        return 1;
+    }
+
+    private record Hit(int x, int z, int rooms, long dist2) {}
+
+    /** One query's ring walk. Every method runs on the query thread. */
+    private static final class NearQuery {
+        private final SpongeCommand command;
+        private final ServerCommandSource source;
+        private final String owner;
+        private final int originX, originZ, minRooms, count;
+        private final int originRegionX, originRegionZ, maxRing;
+        private final List<Hit> hits = new ArrayList<>();
+        private final long startNanos = System.nanoTime();
+
+        private int ring;
+        private int computed;
+
+        NearQuery(SpongeCommand command, ServerCommandSource source, String owner,
+                  int originX, int originZ, int minRooms, int count) {
+            this.command = command;
+            this.source = source;
+            this.owner = owner;
+            this.originX = originX;
+            this.originZ = originZ;
+            this.minRooms = minRooms;
+            this.count = count;
+            this.originRegionX = Math.floorDiv(originX, REGION_BLOCKS);
+            this.originRegionZ = Math.floorDiv(originZ, REGION_BLOCKS);
+            this.maxRing = MAX_RADIUS_BLOCKS / REGION_BLOCKS + 1;
+        }
+
+        void step() {
+            try {
+                while (ring <= maxRing && !satisfied()) {
+                    long[] ringRegions = ringRegions(ring);
+                    LongList missing = new LongList();
+                    List<Hit> ringHits = new ArrayList<>();
+                    for (long region : ringRegions) {
+                        int rooms = command.cache.get(region);
+                        if (rooms == RegionCache.MISSING) {
+                            missing.add(region);
+                        } else if (rooms >= minRooms) {
+                            ringHits.add(hit(region, rooms));
+                        }
+                    }
+                    for (int i = 0; i < missing.size(); i++) {
+                        long region = missing.get(i);
+                        int rooms = resolve(region);
+                        command.cache.put(region, rooms);
+                        computed++;
+                        if (rooms >= minRooms) ringHits.add(hit(region, rooms));
+                    }
+                    hits.addAll(ringHits);
+                    hits.sort((a, b) -> Long.compare(a.dist2(), b.dist2()));
+                    ring++;
+                }
+                reply();
+            } catch (RuntimeException e) {
+                SpongeMonumentMod.LOGGER.error("[SpongeMonument] (command) Query failed for {}", owner, e);
+                finish(List.of(Text.literal("Monument search failed: " + e.getMessage())), true);
+            }
+        }
+
+        /** True once the best {@code count} hits are all closer than anything an outer ring could hold. */
+        private boolean satisfied() {
+            if (hits.size() < count) return false;
+            long bound = (long) Math.max(0, ring - 1) * REGION_BLOCKS;
+            return hits.get(count - 1).dist2() <= bound * bound;
+        }
+
+        /** Sponge rooms of one region's monument, or {@link RegionCache#NO_MONUMENT}; never touches a chunk. */
+        private int resolve(long region) {
+            ServerWorld world = command.overworld;
+            long start = OceanMonumentCoords.placementForRegion(world.getSeed(), PackedXZ.x(region), PackedXZ.z(region));
+            int x = PackedXZ.x(start);
+            int z = PackedXZ.z(start);
+            if (!OceanMonumentCoords.passesBiomeCheck(world, x, z, BiomeTier.VANILLA)) return RegionCache.NO_MONUMENT;
+            // Same corner and rolls as OceanMonumentStructure.createBasePiece.
+            int[] box = {(x << 4) - 29, 0, (z << 4) - 29};
+            MonumentProfile profile = MonumentLayoutAnalyzer.analyzeProfileFromBase(
+                    RegionFileScanner.regenerateBase(world.getSeed(), x, z, box, -1));
+            return profile == null ? RegionCache.NO_MONUMENT : profile.spongeRooms();
+        }
+
+        private long[] ringRegions(int r) {
+            if (r == 0) return new long[]{PackedXZ.pack(originRegionX, originRegionZ)};
+            long[] out = new long[8 * r];
+            int n = 0;
+            for (int d = -r; d <= r; d++) {
+                out[n++] = PackedXZ.pack(originRegionX + d, originRegionZ - r);
+                out[n++] = PackedXZ.pack(originRegionX + d, originRegionZ + r);
+            }
+            for (int d = -r + 1; d <= r - 1; d++) {
+                out[n++] = PackedXZ.pack(originRegionX - r, originRegionZ + d);
+                out[n++] = PackedXZ.pack(originRegionX + r, originRegionZ + d);
+            }
+            return out;
+        }
+
+        private Hit hit(long region, int rooms) {
+            long start = OceanMonumentCoords.placementForRegion(command.overworld.getSeed(), PackedXZ.x(region), PackedXZ.z(region));
+            int x = PackedXZ.x(start) * 16;
+            int z = PackedXZ.z(start) * 16;
+            long dx = x - originX, dz = z - originZ;
+            return new Hit(x, z, rooms, dx * dx + dz * dz);
+        }
+
+        private void reply() {
+            long ms = (System.nanoTime() - startNanos) / 1_000_000L;
+            SpongeMonumentMod.LOGGER.info("[SpongeMonument] (command) {} near ({}, {}) minRooms={} -> {} hits, {} regions computed, {} ms",
+                    owner, originX, originZ, minRooms, Math.min(count, hits.size()), computed, ms);
+
+            List<Text> lines = new ArrayList<>();
+            if (hits.isEmpty()) {
+                lines.add(Text.literal("No monument with " + minRooms + "+ sponge rooms within " + MAX_RADIUS_BLOCKS + " blocks."));
+            } else {
+                int shown = Math.min(count, hits.size());
+                lines.add(Text.literal("Nearest monuments with " + minRooms + "+ sponge rooms:"));
+                for (int i = 0; i < shown; i++) {
+                    Hit h = hits.get(i);
+                    lines.add(Text.literal("#" + (i + 1) + "  x=" + h.x() + " z=" + h.z() + "  "
+                            + h.rooms() + " rooms (~" + MonumentProfile.expectedWetSponges(h.rooms()) + " sponges), "
+                            + Math.round(Math.sqrt(h.dist2())) + " blocks away"));
+                }
+            }
+            finish(lines, false);
+        }
+
+        private void finish(List<Text> lines, boolean error) {
+            command.busy.remove(owner);
+            command.server.execute(() -> {
+                for (Text line : lines) {
+                    if (error) source.sendError(line);
+                    else source.sendFeedback(() -> line, false);
+                }
+            });
+        }
+    }
+}
@@ -4,15 +4,21 @@ import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.level.storage.LevelStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loader.api.FabricLoader;
 
+import com.brianlee.spongemonument.mixin.MinecraftServerAccessor;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.lang.management.ManagementFactory;
 import java.util.Comparator;
 
 import java.net.InetSocketAddress;
@@ -29,14 +35,32 @@ public class SpongeMonumentMod implements ModInitializer {
         // Prepare run/server.properties *before* the dedicated server starts/binds its port.
         ServerLifecycleEvents.SERVER_STARTING.register(this::onServerStarting);
 
+        // /sponge near <minRooms> [count]; answered only in serve mode (see AnalysisProfile.serveOnly()).
+        SpongeCommand.register();
+
+        // /sponge scan: full-radius scans sliced into a per-tick budget (serve mode only).
+        TickScanScheduler.register();
+
         // Register server-start callback
         ServerLifecycleEvents.SERVER_STARTED.register(this::onServerStarted);
 
+        // Flush the /sponge region cache and scan checkpoint while the world folder still exists.
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            SpongeCommand.stop();
+            TickScanScheduler.stop();
+        });
+
         // In dev (Loom runServer), clean up the generated test world after stopping
         ServerLifecycleEvents.SERVER_STOPPED.register(this::onServerStopped);
     }
 
     private void onServerStarting(MinecraftServer server) {
+        if (AnalysisProfile.serveOnly()) {
+            // A real world: leave its folder and server.properties alone.
+            LOGGER.info("[SpongeMonument] Serve mode: /sponge commands enabled, no batch analysis will run.");
+            return;
+        }
+
         // ---- REQUIRED SEED CHECK (must be here, not at class scope) ----
         String seedProp = System.getProperty("sponge.seed");
         if (seedProp == null || seedProp.isBlank()) {
@@ -68,14 +92,15 @@ public class SpongeMonumentMod implements ModInitializer {
 
         // In dev, optionally delete the world folder before the server creates/loads it.
         if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
-            Path runDir = FabricLoader.getInstance().getGameDir();
-            Path worldDir = runDir.resolve("world");
+            Path worldDir = worldDir(server);
             try {
                 deleteRecursively(worldDir);
                 LOGGER.info("[SpongeMonument] (dev) Deleted world folder before start: {}", worldDir.toAbsolutePath());
             } catch (Exception e) {
                 LOGGER.warn("[SpongeMonument] (dev) Failed deleting world folder before start: {}", worldDir.toAbsolutePath(), e);
             }
+            // With storage=memory no region/POI/entity file is ever written, so the deletes above/after are near-free.
+            LOGGER.info("[SpongeMonument] (dev) World storage mode: {}", AnalysisProfile.storageMode());
         }
 
         // Ensure server.properties has the seed and port for this run.
@@ -119,6 +144,12 @@ public class SpongeMonumentMod implements ModInitializer {
         ServerWorld overworld = server.getOverworld();
         if (overworld == null) return;
 
+        if (AnalysisProfile.serveOnly()) {
+            SpongeCommand.start(server);
+            TickScanScheduler.start(server);
+            return;
+        }
+
         // ---- REQUIRED SEED CHECK (must be here, not at class scope) ----
         String seedProp = System.getProperty("sponge.seed");
         if (seedProp == null || seedProp.isBlank()) {
@@ -144,7 +175,12 @@ public class SpongeMonumentMod implements ModInitializer {
         }
         // -------------------------------------------------------------
 
-        LOGGER.info("[SpongeMonument] Server started. Overworld seed = {}", actualSeed);
+        LOGGER.info("[SpongeMonument] Server started. Overworld seed = {} (JVM uptime {} ms, fastStartup={})",
+                actualSeed, ManagementFactory.getRuntimeMXBean().getUptime(), AnalysisProfile.fastStartup());
+
+        if (AnalysisProfile.fastStartup()) {
+            captureLevelTemplate(server, actualSeed);
+        }
 
         int radiusBlocks = Integer.getInteger("sponge.radiusBlocks", 20000);
         int maxResults = Integer.getInteger("sponge.maxResults", 100000);
@@ -162,24 +198,12 @@ public class SpongeMonumentMod implements ModInitializer {
 
         // Internal orchestration for Gradle's runAll task.
         // Users should not need to set these manually.
-        String mode = System.getProperty("sponge.mode", "coords").trim().toLowerCase(); // If for debugging, change the second parameter. Available options: analyze|coords|merge
+        String mode = System.getProperty("sponge.mode", "coords").trim().toLowerCase(); // If for debugging, change the second parameter. Available options: analyze|coords|merge|sample|calibrate|worker
         int batchStart = Integer.getInteger("sponge.batchStart", 0);
 
         // Output files always live at the project root (same convention as results.csv).
         // runAll will read/write these files between phases.
-        Path baseDir;
-        String projectDirProp = System.getProperty("spongemonument.projectDir");
-        if (projectDirProp != null && !projectDirProp.isBlank()) {
-            baseDir = Path.of(projectDirProp);
-        } else {
-            // Loom's runServer typically runs with working dir = <project>/run
-            Path cwd = Path.of(System.getProperty("user.dir"));
-            if (cwd.getFileName() != null && cwd.getFileName().toString().equalsIgnoreCase("run") && cwd.getParent() != null) {
-                baseDir = cwd.getParent();
-            } else {
-                baseDir = cwd;
-            }
-        }
+        Path baseDir = SpongePaths.baseDir();
 
         Path candidatesPath = baseDir.resolve("candidates.csv");
 
@@ -195,18 +219,64 @@ public class SpongeMonumentMod implements ModInitializer {
 
         BlockPos center = new BlockPos(0, 64, 0);
 
+        long phaseStart = System.nanoTime();
+        try {
+            runMode(mode, overworld, center, radiusBlocks, excludeRadiusBlocks, maxResults, candidatesPath, batchStart, batchSize, baseDir);
+        } catch (OutOfMemoryError e) {
+            // The batch has already written its stats (oom=true). Exit non-zero so runAll shrinks the batch and retries.
+            LOGGER.error("[SpongeMonument] OutOfMemoryError in mode={} (batchStart={} batchSize={})", mode, batchStart, batchSize);
+            if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
+                Runtime.getRuntime().halt(3);
+            }
+            throw e;
+        }
+        String phase = switch (mode) {
+            case "analyze" -> mode + "_" + batchStart;
+            case "worker" -> mode + "_" + WorkQueue.workerId();
+            default -> mode;
+        };
+        PhaseStats.write(baseDir, phase, (System.nanoTime() - phaseStart) / 1_000_000L);
+
+        // Dev-only: this project treats the run/world as disposable output.
+        // Always hard-exit after the analysis to skip the expensive save-on-stop phase.
+        // NOTE: Runtime.halt(...) bypasses shutdown hooks (including world-save), which is exactly what we want for disposable dev worlds.
+        if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
+            LOGGER.info("[SpongeMonument] Analysis complete; hard-exiting JVM (skipping world save). ");
+
+            // Give the logger a moment to flush to console before halting.
+            new Thread(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                Runtime.getRuntime().halt(0);
+            }, "SpongeMonument-HardExit").start();
+        }
+    }
+
+    private static void runMode(
+            String mode,
+            ServerWorld overworld,
+            BlockPos center,
+            int radiusBlocks,
+            int excludeRadiusBlocks,
+            int maxResults,
+            Path candidatesPath,
+            int batchStart,
+            int batchSize,
+            Path baseDir
+    ) {
+        MonumentSource source = new ServerMonumentSource(overworld);
         switch (mode) {
             case "coords" -> MonumentLocateSmokeTest.runCoordsOnly(
-                    overworld,
-                    center,
-                    radiusBlocks,
-                    excludeRadiusBlocks,
+                    source,
+                    ScanShape.configured(center.getX(), center.getZ(), radiusBlocks, excludeRadiusBlocks),
                     maxResults,
                     candidatesPath
             );
 
             case "analyze" -> MonumentLocateSmokeTest.runAnalyzeBatch(
-                    overworld,
+                    source,
                     candidatesPath,
                     batchStart,
                     batchSize,
@@ -217,13 +287,31 @@ public class SpongeMonumentMod implements ModInitializer {
                     baseDir
             );
 
+            case "sample" -> SamplingEstimator.run(
+                    overworld,
+                    ScanShape.configured(center.getX(), center.getZ(), radiusBlocks, excludeRadiusBlocks),
+                    baseDir
+            );
+
+            case "calibrate" -> BiomeCalibration.run(
+                    overworld,
+                    ScanShape.configured(center.getX(), center.getZ(), radiusBlocks, excludeRadiusBlocks),
+                    baseDir
+            );
+
+            case "worker" -> WorkQueue.runWorker(
+                    source,
+                    WorkQueue.configuredDir(baseDir),
+                    overworld.getSeed()
+            );
+
             default -> {
                 LOGGER.warn(
-                        "[SpongeMonument] Unknown sponge.mode='{}' (expected coords|analyze|merge). Defaulting to analyze.",
+                        "[SpongeMonument] Unknown sponge.mode='{}' (expected coords|analyze|merge|sample|calibrate|worker|serve). Defaulting to analyze.",
                         mode
                 );
                 MonumentLocateSmokeTest.runAnalyzeBatch(
-                        overworld,
+                        source,
                         candidatesPath,
                         batchStart,
                         batchSize,
@@ -231,32 +319,15 @@ public class SpongeMonumentMod implements ModInitializer {
                 );
             }
         }
-
-        // Dev-only: this project treats the run/world as disposable output.
-        // Always hard-exit after the analysis to skip the expensive save-on-stop phase.
-        // NOTE: Runtime.halt(...) bypasses shutdown hooks (including world-save), which is exactly what we want for disposable dev worlds.
-        if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
-            LOGGER.info("[SpongeMonument] Analysis complete; hard-exiting JVM (skipping world save). ");
-
-            // Give the logger a moment to flush to console before halting.
-            new Thread(() -> {
-                try {
-                    TimeUnit.MILLISECONDS.sleep(200);
-                } catch (InterruptedException ignored) {
-                }
-                Runtime.getRuntime().halt(0);
-            }, "SpongeMonument-HardExit").start();
-        }
     }
 
     private void onServerStopped(MinecraftServer server) {
-        // Only do this in dev runs; never delete real server worlds.
-        if (!FabricLoader.getInstance().isDevelopmentEnvironment()) {
+        // Only do this in dev batch runs; never delete real server worlds.
+        if (!FabricLoader.getInstance().isDevelopmentEnvironment() || AnalysisProfile.serveOnly()) {
             return;
         }
 
-        Path runDir = FabricLoader.getInstance().getGameDir();
-        Path worldDir = runDir.resolve("world");
+        Path worldDir = worldDir(server);
 
         try {
             deleteRecursively(worldDir);
@@ -266,6 +337,39 @@ public class SpongeMonumentMod implements ModInitializer {
         }
     }
 
+    /**
+     * Saves this run's level.dat as {@code run/templates/<seed>/level.dat} (once per seed).
+     *
+     * runServer copies the template into run/world before the server boots, so later batches load an
+     * already-initialized level instead of creating one (which is what triggers the spawn search).
+     */
+    private static void captureLevelTemplate(MinecraftServer server, long seed) {
+        Path template = FabricLoader.getInstance().getGameDir()
+                .resolve("templates")
+                .resolve(Long.toString(seed))
+                .resolve("level.dat");
+        if (Files.exists(template)) return;
+
+        try {
+            LevelStorage.Session session = ((MinecraftServerAccessor) server).spongemonument$getSession();
+            session.backupLevelDataFile(server.getRegistryManager(), server.getSaveProperties());
+            Files.createDirectories(template.getParent());
+            // Via a temp file: concurrent local queue workers clone the template while another may be saving it.
+            Path tmp = template.resolveSibling("level.dat." + ProcessHandle.current().pid() + ".tmp");
+            Files.copy(session.getDirectory(WorldSavePath.LEVEL_DAT), tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, template, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("[SpongeMonument] (dev) Saved level template for seed {}: {}", seed, template.toAbsolutePath());
+        } catch (Exception e) {
+            // Best-effort: without a template the next batch simply creates the level from scratch.
+            LOGGER.warn("[SpongeMonument] (dev) Failed saving level template: {}", template.toAbsolutePath(), e);
+        }
+    }
+
+    /** The world folder: {@code run/world}, or {@code run/workers/<id>/world} for a queue worker (see spongeWorker). */
+    private static Path worldDir(MinecraftServer server) {
+        return server.getSavePath(WorldSavePath.ROOT).normalize();
+    }
+
     private static void requestStop(MinecraftServer server) {
         server.execute(() -> server.stop(false));
     }
@@ -0,0 +1,24 @@
+package com.brianlee.spongemonument;
+
+import java.nio.file.Path;
+
+public final class SpongePaths {
+    private SpongePaths() {}
+
+    /**
+     * Output files always live at the project root (same convention as results.csv).
+     * Gradle passes -Dspongemonument.projectDir; otherwise fall back to the working directory.
+     */
+    public static Path baseDir() {
+        String projectDirProp = System.getProperty("spongemonument.projectDir");
+        if (projectDirProp != null && !projectDirProp.isBlank()) {
+            return Path.of(projectDirProp);
+        }
+        // Loom's runServer typically runs with working dir = <project>/run
+        Path cwd = Path.of(System.getProperty("user.dir"));
+        if (cwd.getFileName() != null && cwd.getFileName().toString().equalsIgnoreCase("run") && cwd.getParent() != null) {
+            return cwd.getParent();
+        }
+        return cwd;
+    }
+}
@@ -0,0 +1,63 @@
+package com.brianlee.spongemonument;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Spatial queries over results.idx.
+ *
+ * -Dsponge.query=radius|nearest, -Dsponge.x / -Dsponge.z (query point, default 0,0),
+ * -Dsponge.minRooms (default 0), -Dsponge.radius (blocks, radius query), -Dsponge.k (nearest query).
+ */
+public final class SpongeQuery {
+    private SpongeQuery() {}
+
+    public static void run(Path baseDir) {
+        Path idxFile = baseDir.resolve(MonumentIndex.FILE_NAME);
+        if (!Files.exists(idxFile)) {
+            throw new IllegalStateException(idxFile.getFileName() + " not found in " + baseDir.toAbsolutePath() + " (run runAll first)");
+        }
+
+        String query = System.getProperty("sponge.query", "nearest").trim().toLowerCase();
+        int x = SpongeCli.intProp("sponge.x", 0);
+        int z = SpongeCli.intProp("sponge.z", 0);
+        int minRooms = SpongeCli.intProp("sponge.minRooms", 0);
+
+        MonumentIndex index = MonumentIndex.load(idxFile);
+        System.out.println("x,z,inferred_sponge_rooms,distance");
+
+        switch (query) {
+            case "radius" -> {
+                int radius = SpongeCli.intProp("sponge.radius", 3000);
+                long[] hits = new long[1];
+                long t0 = System.nanoTime();
+                index.forEachWithin(x, z, radius, minRooms, (ex, ez, rooms) -> {
+                    hits[0]++;
+                    System.out.println(ex + "," + ez + "," + rooms + "," + distance(x, z, ex, ez));
+                });
+                long us = (System.nanoTime() - t0) / 1_000L;
+                System.out.println("[SpongeMonument] (query) " + hits[0] + " monument(s) with >= " + minRooms
+                        + " rooms within " + radius + " blocks of (" + x + ", " + z + ") in " + us + " us");
+            }
+            case "nearest" -> {
+                int k = SpongeCli.intProp("sponge.k", 10);
+                long t0 = System.nanoTime();
+                List<MonumentResult> hits = index.nearest(x, z, k, minRooms);
+                long us = (System.nanoTime() - t0) / 1_000L;
+                for (MonumentResult r : hits) {
+                    System.out.println(r.x() + "," + r.z() + "," + r.spongeRooms() + "," + distance(x, z, r.x(), r.z()));
+                }
+                System.out.println("[SpongeMonument] (query) " + hits.size() + " nearest monument(s) with >= " + minRooms
+                        + " rooms to (" + x + ", " + z + ") in " + us + " us");
+            }
+            default -> throw new IllegalArgumentException("Unknown -Dsponge.query='" + query + "' (expected radius|nearest)");
+        }
+    }
+
+    private static long distance(int x, int z, int ex, int ez) {
+        long dx = (long) ex - x;
+        long dz = (long) ez - z;
+        return Math.round(Math.sqrt(dx * dx + dz * dz));
+    }
+}
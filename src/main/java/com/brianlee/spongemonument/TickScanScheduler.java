@@ -0,0 +1,570 @@
+package com.brianlee.spongemonument;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.structure.StructureStart;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.gen.structure.Structure;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /sponge scan start <radiusBlocks> [excludeRadiusBlocks]}: a full coords + analyze + merge run on a live
+ * server, spread over ticks instead of blocking SERVER_STARTED the way the batch modes do.
+ *
+ * The work covers the -Dsponge.shape area and is cut into units of one placement region (placement, shape test,
+ * biome check) or one candidate (structure start, piece walk). Each tick runs units at END_SERVER_TICK until its
+ * budget is spent:
+ *
+ *   budget = min(cap, sponge.scanTargetMspt - average tick time without the scan)
+ *
+ * with cap = sponge.scanBudgetMs while players are online and sponge.scanIdleBudgetMs while nobody is, so a
+ * struggling server gets no scan work at all until it recovers. Structure starts are requested from the scan
+ * thread (the server thread never waits on worldgen) and only picked up once their future has completed.
+ *
+ * Progress is checkpointed to {@code <world>/data/spongemonument_scan/} every sponge.scanCheckpointSeconds and
+ * on shutdown, and an unfinished scan resumes when the server starts again. The merge runs on the scan thread
+ * and its outputs (results.csv/.bin/.idx, merge_stats) are copied to {@link SpongePaths#baseDir()}. A failed
+ * merge leaves the scan FAILED until {@code /sponge scan resume} retries it or {@code /sponge scan cancel} drops it.
+ */
+public final class TickScanScheduler {
+
+    // -Dsponge.scanBudgetMs (default 5): most scan time per tick while players are online.
+    private static final int BUDGET_MS = Math.max(0, Integer.getInteger("sponge.scanBudgetMs", 5));
+    // -Dsponge.scanIdleBudgetMs (default 40): most scan time per tick while the server is empty.
+    private static final int IDLE_BUDGET_MS = Math.max(0, Integer.getInteger("sponge.scanIdleBudgetMs", 40));
+    // -Dsponge.scanTargetMspt (default 40): server tick time plus scan time is kept under this.
+    private static final int TARGET_MSPT = Math.max(1, Integer.getInteger("sponge.scanTargetMspt", 40));
+    // -Dsponge.scanParallelism (default 4): structure-start chunk futures in flight.
+    private static final int PARALLELISM = Math.max(1, Integer.getInteger("sponge.scanParallelism", 4));
+    // -Dsponge.scanCheckpointSeconds (default 60): how much progress a crash can lose.
+    private static final long CHECKPOINT_NANOS =
+            TimeUnit.SECONDS.toNanos(Math.max(1, Integer.getInteger("sponge.scanCheckpointSeconds", 60)));
+
+    // Tick-time average weight, and the smallest slice worth starting (one biome check is ~50 us).
+    private static final double AVERAGE_WEIGHT = 0.1;
+    private static final long MIN_SLICE_NANOS = 200_000L;
+
+    static final String DIR_NAME = "spongemonument_scan";
+    private static final String STATE_FILE = "scan.properties";
+    private static final String CANDIDATES_FILE = "candidates.csv";
+    private static final String RESULTS_FILE = "results_part_0.csv";
+    private static final String[] OUTPUT_FILES = {
+            "results.csv", ResultsBinary.FILE_NAME, MonumentIndex.FILE_NAME, MonumentLocateSmokeTest.MERGE_STATS_FILE};
+
+    // FAILED is never saved: the state file still says MERGE, so a restart retries the merge as well.
+    private enum Phase { COORDS, ANALYZE, MERGE, FAILED, DONE }
+
+    private static TickScanScheduler active; // server thread only
+
+    private final MinecraftServer server;
+    private final ServerWorld overworld;
+    private final Structure monument;
+    private final Path dir;
+    private final ExecutorService scanThread;
+
+    private Scan scan;
+    private long tickStartNanos;
+    private double tickMs = -1.0;
+    private double budgetMs;
+
+    // Scan thread only: set when a checkpoint write failed, until a full rewrite succeeds.
+    private boolean writeFailed;
+
+    private TickScanScheduler(MinecraftServer server) {
+        this.server = server;
+        this.overworld = server.getOverworld();
+        RegistryKey<Structure> monumentKey = RegistryKey.of(RegistryKeys.STRUCTURE, Identifier.of("minecraft", "monument"));
+        this.monument = overworld.getRegistryManager().getOrThrow(RegistryKeys.STRUCTURE).getOrThrow(monumentKey).value();
+        this.dir = server.getSavePath(WorldSavePath.ROOT).resolve("data").resolve(DIR_NAME);
+        this.scanThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "SpongeMonument-Scan");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Hooks the tick events; they do nothing until {@link #start} has run. */
+    public static void register() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            if (active != null) active.tickStartNanos = System.nanoTime();
+        });
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (active != null) active.onEndTick();
+        });
+    }
+
+    /** Creates the scheduler and resumes an unfinished scan saved in the world. */
+    public static void start(MinecraftServer server) {
+        TickScanScheduler scheduler = new TickScanScheduler(server);
+        scheduler.tickStartNanos = System.nanoTime();
+        try {
+            scheduler.scan = scheduler.load();
+        } catch (RuntimeException e) {
+            SpongeMonumentMod.LOGGER.error("[SpongeMonument] (scan) Could not resume the saved scan in {}; start a new one",
+                    scheduler.dir.toAbsolutePath(), e);
+        }
+        Scan scan = scheduler.scan;
+        if (scan != null && scan.phase != Phase.DONE) {
+            SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Resuming: {}", scan.describe());
+            if (scan.phase == Phase.MERGE) scheduler.merge(scan);
+        }
+        active = scheduler;
+    }
+
+    /** Writes a final checkpoint and waits for it (and a running merge) to finish. */
+    public static void stop() {
+        TickScanScheduler scheduler = active;
+        active = null;
+        if (scheduler == null) return;
+        Scan scan = scheduler.scan;
+        if (scan != null && (scan.phase == Phase.COORDS || scan.phase == Phase.ANALYZE)) scheduler.checkpoint(scan);
+        scheduler.scanThread.shutdown();
+        try {
+            scheduler.scanThread.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** The {@code scan} branch of the /sponge command tree. */
+    static LiteralArgumentBuilder<ServerCommandSource> commandTree() {
+        return CommandManager.literal("scan")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("start")
+                        .then(CommandManager.argument("radiusBlocks", IntegerArgumentType.integer(16, 30_000_000))
+                                .executes(ctx -> run(ctx, (s, src) -> s.startScan(src, IntegerArgumentType.getInteger(ctx, "radiusBlocks"), 0)))
+                                .then(CommandManager.argument("excludeRadiusBlocks", IntegerArgumentType.integer(0, 30_000_000))
+                                        .executes(ctx -> run(ctx, (s, src) -> s.startScan(src,
+                                                IntegerArgumentType.getInteger(ctx, "radiusBlocks"),
+                                                IntegerArgumentType.getInteger(ctx, "excludeRadiusBlocks")))))))
+                .then(CommandManager.literal("status").executes(ctx -> run(ctx, TickScanScheduler::status)))
+                .then(CommandManager.literal("pause").executes(ctx -> run(ctx, (s, src) -> s.setPaused(src, true))))
+                .then(CommandManager.literal("resume").executes(ctx -> run(ctx, (s, src) -> s.setPaused(src, false))))
+                .then(CommandManager.literal("cancel").executes(ctx -> run(ctx, TickScanScheduler::cancel)));
+    }
+
+    private interface Action {
+        int run(TickScanScheduler scheduler, ServerCommandSource source);
+    }
+
+    private static int run(CommandContext<ServerCommandSource> ctx, Action action) {
+        if (active == null) {
+            ctx.getSource().sendError(Text.literal("SpongeMonument is not ready yet."));
+            return 0;
+        }
+        return action.run(active, ctx.getSource());
+    }
+
+    // ---- commands (server thread) ----
+
+    private int startScan(ServerCommandSource source, int radiusBlocks, int excludeRadiusBlocks) {
+        if (excludeRadiusBlocks > radiusBlocks) {
+            source.sendError(Text.literal("excludeRadiusBlocks must not exceed radiusBlocks."));
+            return 0;
+        }
+        if (scan != null && scan.phase != Phase.DONE) {
+            source.sendError(Text.literal("A scan is already in progress; use /sponge scan cancel first."));
+            return 0;
+        }
+        // Same area as runAll: centered on 0,0, in the server's -Dsponge.shape.
+        ScanShape shape;
+        try {
+            shape = ScanShape.configured(0, 0, radiusBlocks, excludeRadiusBlocks);
+        } catch (RuntimeException e) {
+            source.sendError(Text.literal("Invalid scan shape: " + e.getMessage()));
+            return 0;
+        }
+        Scan started = new Scan(shape);
+        scan = started;
+        scanThread.execute(() -> deleteScanFiles(dir));
+        checkpoint(started);
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Started by {}: {}", source.getName(), started.describe());
+        source.sendFeedback(() -> Text.literal("Scan started over " + started.regionCount + " placement regions."
+                + " Use /sponge scan status to follow it."), true);
+        return 1;
+    }
+
+    private int status(ServerCommandSource source) {
+        if (scan == null) {
+            source.sendFeedback(() -> Text.literal("No scan has been started in this world."), false);
+            return 0;
+        }
+        String line = scan.describe();
+        String timing = String.format("tick %.1f ms, scan budget %.1f ms/tick", Math.max(0.0, tickMs), budgetMs);
+        source.sendFeedback(() -> Text.literal(line), false);
+        source.sendFeedback(() -> Text.literal(timing), false);
+        return 1;
+    }
+
+    private int setPaused(ServerCommandSource source, boolean paused) {
+        if (scan != null && scan.phase == Phase.FAILED && !paused) {
+            Scan retry = scan;
+            retry.phase = Phase.MERGE;
+            merge(retry);
+            source.sendFeedback(() -> Text.literal("Retrying the merge."), true);
+            return 1;
+        }
+        if (scan == null || scan.phase == Phase.FAILED || scan.phase == Phase.MERGE || scan.phase == Phase.DONE) {
+            source.sendError(Text.literal("No scan is in progress."));
+            return 0;
+        }
+        scan.paused = paused;
+        checkpoint(scan);
+        source.sendFeedback(() -> Text.literal(paused ? "Scan paused." : "Scan resumed."), true);
+        return 1;
+    }
+
+    private int cancel(ServerCommandSource source) {
+        if (scan == null || scan.phase == Phase.MERGE) {
+            source.sendError(Text.literal(scan == null ? "No scan is in progress." : "The scan is merging; wait for it to finish."));
+            return 0;
+        }
+        scan = null;
+        scanThread.execute(() -> deleteScanFiles(dir));
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Cancelled by {}", source.getName());
+        source.sendFeedback(() -> Text.literal("Scan cancelled and its progress deleted."), true);
+        return 1;
+    }
+
+    // ---- tick slice (server thread) ----
+
+    private void onEndTick() {
+        long now = System.nanoTime();
+        // START..END covers only the server's own work: the slice below runs after this measurement.
+        double lastTickMs = (now - tickStartNanos) / 1_000_000.0;
+        tickMs = tickMs < 0 ? lastTickMs : tickMs + AVERAGE_WEIGHT * (lastTickMs - tickMs);
+
+        Scan s = scan;
+        if (s == null || s.paused || (s.phase != Phase.COORDS && s.phase != Phase.ANALYZE)) {
+            budgetMs = 0.0;
+            return;
+        }
+
+        int cap = server.getCurrentPlayerCount() == 0 ? IDLE_BUDGET_MS : BUDGET_MS;
+        budgetMs = Math.max(0.0, Math.min(cap, TARGET_MSPT - tickMs));
+        long budgetNanos = (long) (budgetMs * 1_000_000.0);
+        if (budgetNanos >= MIN_SLICE_NANOS) {
+            long deadline = now + budgetNanos;
+            try {
+                while (step(s) && System.nanoTime() < deadline) {
+                    // one unit per iteration
+                }
+            } catch (RuntimeException e) {
+                s.paused = true;
+                SpongeMonumentMod.LOGGER.error("[SpongeMonument] (scan) Paused after an error; /sponge scan resume retries", e);
+            }
+            s.workNanos += System.nanoTime() - now;
+        }
+
+        if (now - s.lastCheckpointNanos >= CHECKPOINT_NANOS) {
+            checkpoint(s);
+            SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) {} (tick {} ms, budget {} ms)",
+                    s.describe(), String.format("%.1f", tickMs), String.format("%.1f", budgetMs));
+        }
+    }
+
+    /** Runs one unit; false when the slice should end (phase finished, or waiting on worldgen). */
+    private boolean step(Scan s) {
+        return switch (s.phase) {
+            case COORDS -> coordsUnit(s);
+            case ANALYZE -> analyzeUnit(s);
+            default -> false;
+        };
+    }
+
+    private boolean coordsUnit(Scan s) {
+        int regionX = s.minRegionX + (int) (s.nextRegion / s.regionsZ);
+        int regionZ = s.minRegionZ + (int) (s.nextRegion % s.regionsZ);
+        s.nextRegion++;
+
+        // Shape first: the biome check is nearly all of a unit's cost.
+        if (s.shape.mayHoldRegion(regionX, regionZ)) {
+            long start = OceanMonumentCoords.placementForRegion(overworld.getSeed(), regionX, regionZ);
+            if (s.shape.contains(PackedXZ.x(start), PackedXZ.z(start))
+                    && OceanMonumentCoords.candidateForRegion(overworld, regionX, regionZ) != null) {
+                s.candidates.add(start);
+            }
+        }
+
+        if (s.nextRegion < s.regionCount) return true;
+        s.phase = Phase.ANALYZE;
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Coords done: {} candidates", s.candidates.size());
+        checkpoint(s);
+        return true;
+    }
+
+    private boolean analyzeUnit(Scan s) {
+        CompletableFuture<Chunk> head = s.inFlight.peekFirst();
+        if (head != null && head.isDone()) {
+            s.inFlight.removeFirst();
+            long candidate = s.candidates.get(s.nextCandidate++);
+            Chunk chunk = head.isCompletedExceptionally() ? null : head.join();
+            if (chunk == null) {
+                s.failed++;
+                SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (scan) Could not load chunk ({}, {}); skipped",
+                        PackedXZ.x(candidate), PackedXZ.z(candidate));
+            } else {
+                StructureStart structureStart = chunk.getStructureStart(monument);
+                MonumentProfile profile = MonumentLayoutAnalyzer.analyzeProfile(structureStart);
+                if (profile != null) {
+                    s.results.add(PackedXZ.x(candidate) << 4, PackedXZ.z(candidate) << 4, profile.spongeRooms(), profile);
+                }
+            }
+            return true;
+        }
+        if (s.inFlight.size() < PARALLELISM && s.issued < s.candidates.size()) {
+            s.inFlight.addLast(requestStructureStart(s.candidates.get(s.issued++)));
+            return true;
+        }
+        if (s.nextCandidate < s.candidates.size()) return false; // waiting on worldgen
+
+        s.phase = Phase.MERGE;
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Analyze done: {} monuments, {} skipped", s.results.size(), s.failed);
+        checkpoint(s);
+        merge(s);
+        return false;
+    }
+
+    /**
+     * Requests the candidate's chunk at STRUCTURE_STARTS. Called on the server thread,
+     * getChunkFutureSyncOnMainThread would drive the chunk manager until the chunk is ready; from the scan thread
+     * it only queues the ticket for the next time the server runs its tasks.
+     */
+    private CompletableFuture<Chunk> requestStructureStart(long candidate) {
+        ServerChunkManager chunks = overworld.getChunkManager();
+        return CompletableFuture
+                .supplyAsync(() -> chunks.getChunkFutureSyncOnMainThread(
+                        PackedXZ.x(candidate), PackedXZ.z(candidate), ChunkStatus.STRUCTURE_STARTS, true), scanThread)
+                .thenCompose(future -> future)
+                .thenApply(result -> result.orElse(null));
+    }
+
+    // ---- persistence ----
+
+    /**
+     * Snapshots the rows added since the last checkpoint plus the counters, and appends/writes them on the scan
+     * thread. The counters in scan.properties say how many rows of each file are valid, so a crash between the
+     * appends and the state write only leaves extra rows that {@link #load} ignores.
+     */
+    private void checkpoint(Scan s) {
+        s.lastCheckpointNanos = System.nanoTime();
+        int candidatesFrom = s.candidatesSaved;
+        long[] newCandidates = new long[s.candidates.size() - candidatesFrom];
+        for (int i = 0; i < newCandidates.length; i++) newCandidates[i] = s.candidates.get(candidatesFrom + i);
+        int resultsFrom = s.resultsSaved;
+        ResultStore newResults = new ResultStore(Math.max(1, s.results.size() - resultsFrom));
+        for (int i = resultsFrom; i < s.results.size(); i++) {
+            newResults.add(s.results.x(i), s.results.z(i), s.results.spongeRooms(i), s.results.profile(i));
+        }
+        Properties state = s.toProperties();
+        s.candidatesSaved = s.candidates.size();
+        s.resultsSaved = s.results.size();
+
+        scanThread.execute(() -> {
+            boolean fresh = candidatesFrom == 0 && resultsFrom == 0;
+            if (writeFailed && !fresh) return; // a full rewrite is already scheduled
+            try {
+                Files.createDirectories(dir);
+                appendCandidates(dir.resolve(CANDIDATES_FILE), newCandidates, candidatesFrom == 0);
+                MonumentLocateSmokeTest.appendResultsCsv(dir.resolve(RESULTS_FILE), newResults, resultsFrom == 0);
+                writeState(state);
+                writeFailed = false;
+            } catch (IOException | RuntimeException e) {
+                writeFailed = true;
+                SpongeMonumentMod.LOGGER.error("[SpongeMonument] (scan) Checkpoint failed in {}; rewriting everything next time",
+                        dir.toAbsolutePath(), e);
+                server.execute(() -> {
+                    if (scan == s) {
+                        s.candidatesSaved = 0;
+                        s.resultsSaved = 0;
+                    }
+                });
+            }
+        });
+    }
+
+    /** Merges on the scan thread, copies the outputs to the project directory and marks the scan done. */
+    private void merge(Scan s) {
+        scanThread.execute(() -> {
+            long t0 = System.nanoTime();
+            try {
+                MonumentLocateSmokeTest.runMerge(dir);
+                Path baseDir = SpongePaths.baseDir();
+                for (String name : OUTPUT_FILES) {
+                    Path file = dir.resolve(name);
+                    if (Files.exists(file)) Files.copy(file, baseDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                }
+                PhaseStats.write(dir, "scan", (s.workNanos + System.nanoTime() - t0) / 1_000_000L);
+                Properties state = s.toProperties();
+                state.setProperty("phase", Phase.DONE.name());
+                writeState(state);
+                SpongeMonumentMod.LOGGER.info("[SpongeMonument] (scan) Finished; results in {}", baseDir.toAbsolutePath());
+                server.execute(() -> s.phase = Phase.DONE);
+            } catch (IOException | RuntimeException e) {
+                SpongeMonumentMod.LOGGER.error("[SpongeMonument] (scan) Merge failed; /sponge scan resume retries it, /sponge scan cancel drops the scan", e);
+                server.execute(() -> {
+                    if (scan == s) s.phase = Phase.FAILED;
+                });
+            }
+        });
+    }
+
+    private Scan load() {
+        Path stateFile = dir.resolve(STATE_FILE);
+        if (!Files.exists(stateFile)) return null;
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            p.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + stateFile.toAbsolutePath(), e);
+        }
+        Scan s = new Scan(ScanShape.parse(p.getProperty("shape")));
+        s.phase = Phase.valueOf(p.getProperty("phase"));
+        s.paused = Boolean.parseBoolean(p.getProperty("paused", "false"));
+        s.nextRegion = Long.parseLong(p.getProperty("nextRegion"));
+        s.failed = Integer.parseInt(p.getProperty("failed", "0"));
+        s.workNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(p.getProperty("workMs", "0")));
+        if (s.phase != Phase.COORDS && s.phase != Phase.ANALYZE) return s; // the merge reads the files itself
+
+        int candidates = Integer.parseInt(p.getProperty("candidates"));
+        int results = Integer.parseInt(p.getProperty("results"));
+        if (candidates > 0) {
+            LongList saved = MonumentLocateSmokeTest.readCandidates(dir.resolve(CANDIDATES_FILE));
+            if (saved.size() < candidates) throw new IllegalStateException(CANDIDATES_FILE + " is shorter than " + STATE_FILE + " says");
+            for (int i = 0; i < candidates; i++) s.candidates.add(saved.get(i));
+        }
+        if (results > 0) {
+            ResultStore saved = new ResultStore(results);
+            MonumentLocateSmokeTest.readResultsCsv(dir.resolve(RESULTS_FILE), saved);
+            if (saved.size() < results) throw new IllegalStateException(RESULTS_FILE + " is shorter than " + STATE_FILE + " says");
+            for (int i = 0; i < results; i++) s.results.add(saved.x(i), saved.z(i), saved.spongeRooms(i), saved.profile(i));
+        }
+        s.nextCandidate = Integer.parseInt(p.getProperty("nextCandidate", "0"));
+        s.issued = s.nextCandidate;
+        // Rows past the saved counts may exist (crash mid-checkpoint): the first checkpoint rewrites both files.
+        s.candidatesSaved = 0;
+        s.resultsSaved = 0;
+        return s;
+    }
+
+    private void writeState(Properties state) throws IOException {
+        Path tmp = dir.resolve(STATE_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            state.store(out, "SpongeMonument background scan");
+        }
+        Files.move(tmp, dir.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void appendCandidates(Path file, long[] candidates, boolean fresh) throws IOException {
+        StandardOpenOption mode = fresh ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            if (fresh) w.write("chunk_x,chunk_z\n");
+            for (long c : candidates) {
+                w.write(PackedXZ.x(c) + "," + PackedXZ.z(c) + "\n");
+            }
+        }
+    }
+
+    private static void deleteScanFiles(Path dir) {
+        if (!Files.exists(dir)) return;
+        try (var walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).filter(p -> !p.equals(dir)).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (scan) Failed deleting {}", p.toAbsolutePath(), e);
+                }
+            });
+        } catch (IOException e) {
+            SpongeMonumentMod.LOGGER.warn("[SpongeMonument] (scan) Failed clearing {}", dir.toAbsolutePath(), e);
+        }
+    }
+
+    /** One scan's area and progress. Server thread only; checkpoints hand the scan thread copies. */
+    private static final class Scan {
+        final ScanShape shape;
+        final int minRegionX, minRegionZ, regionsZ;
+        final long regionCount;
+
+        Phase phase = Phase.COORDS;
+        boolean paused;
+        long nextRegion;
+        final LongList candidates = new LongList();
+        int nextCandidate; // every candidate before this one has been analyzed
+        int issued;        // every candidate before this one has had its chunk requested
+        final ArrayDeque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+        final ResultStore results = new ResultStore();
+        int failed;
+        long workNanos;
+
+        int candidatesSaved, resultsSaved;
+        long lastCheckpointNanos;
+
+        Scan(ScanShape shape) {
+            this.shape = shape;
+            // The same region grid, in the same X-major order, as OceanMonumentCoords.findMonumentStartChunks.
+            this.minRegionX = OceanMonumentCoords.regionOf(shape.minChunkX());
+            this.minRegionZ = OceanMonumentCoords.regionOf(shape.minChunkZ());
+            int regionsX = OceanMonumentCoords.regionOf(shape.maxChunkX()) - minRegionX + 1;
+            this.regionsZ = OceanMonumentCoords.regionOf(shape.maxChunkZ()) - minRegionZ + 1;
+            this.regionCount = (long) regionsX * regionsZ;
+        }
+
+        Properties toProperties() {
+            Properties p = new Properties();
+            p.setProperty("shape", shape.spec());
+            p.setProperty("phase", phase.name());
+            p.setProperty("paused", Boolean.toString(paused));
+            p.setProperty("nextRegion", Long.toString(nextRegion));
+            p.setProperty("candidates", Integer.toString(candidates.size()));
+            p.setProperty("nextCandidate", Integer.toString(nextCandidate));
+            p.setProperty("results", Integer.toString(results.size()));
+            p.setProperty("failed", Integer.toString(failed));
+            p.setProperty("workMs", Long.toString(workNanos / 1_000_000L));
+            return p;
+        }
+
+        String describe() {
+            String area = shape.describe();
+            String progress = switch (phase) {
+                case COORDS -> String.format("coords %.1f%% (%d/%d regions, %d candidates)",
+                        100.0 * nextRegion / regionCount, nextRegion, regionCount, candidates.size());
+                case ANALYZE -> String.format("analyze %.1f%% (%d/%d candidates, %d monuments, %d skipped)",
+                        candidates.isEmpty() ? 100.0 : 100.0 * nextCandidate / candidates.size(),
+                        nextCandidate, candidates.size(), results.size(), failed);
+                case MERGE -> "merging";
+                case FAILED -> "merge failed (see the server log); resume retries it, cancel drops the scan";
+                case DONE -> "done";
+            };
+            return "scan " + area + ": " + progress + (paused ? ", paused" : "") + ", " + workNanos / 1_000_000_000L + " s of tick time used";
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.brianlee.spongemonument;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streaming waypoint export (replaces the old Groovy block in runAll).
+ *
+ * results.csv is read once, line by line; every row that passes -Dsponge.xaeroMinRooms is handed to all
+ * enabled sinks in the same pass, so memory stays flat regardless of how many rows there are. Files are only
+ * created once a row reaches them, so formats with nothing to export write nothing.
+ *
+ * -Dsponge.exportFormats: comma list of xaero, journeymap, voxelmap, geojson (default xaero)
+ * -Dsponge.xaeroMinRooms (default 4), -Dsponge.xaeroDims=overworld|nether|both (default overworld),
+ * -Dsponge.xaeroColor=0..15 (default 11, aqua; also used for the other formats).
+ */
+public final class WaypointExporter {
+    private WaypointExporter() {}
+
+    // Minecraft chat colour codes 0..15 as RGB (used by the formats that want real colours).
+    private static final int[] COLOR_RGB = {
+            0x000000, 0x0000AA, 0x00AA00, 0x00AAAA, 0xAA0000, 0xAA00AA, 0xFFAA00, 0xAAAAAA,
+            0x555555, 0x5555FF, 0x55FF55, 0x55FFFF, 0xFF5555, 0xFF55FF, 0xFFFF55, 0xFFFFFF
+    };
+
+    /** One output format; receives every exported monument once. */
+    interface Sink extends AutoCloseable {
+        void accept(int x, int z, int rooms) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    public static void run(Path baseDir) {
+        Path resultsFile = baseDir.resolve("results.csv");
+        if (!Files.exists(resultsFile)) {
+            System.out.println("[SpongeMonument] (export) results.csv missing; skipping waypoint export.");
+            return;
+        }
+
+        int minRooms = 4;
+        try {
+            minRooms = SpongeCli.intProp("sponge.xaeroMinRooms", 4);
+        } catch (IllegalArgumentException e) {
+            System.out.println("[SpongeMonument] (export) Invalid -Dsponge.xaeroMinRooms, using 4");
+        }
+        String dims = System.getProperty("sponge.xaeroDims", "overworld").trim().toLowerCase(Locale.ROOT);
+        if (!dims.equals("overworld") && !dims.equals("nether") && !dims.equals("both")) {
+            System.out.println("[SpongeMonument] (export) Invalid -Dsponge.xaeroDims, using 'overworld'");
+            dims = "overworld";
+        }
+        boolean overworld = dims.equals("overworld") || dims.equals("both");
+        boolean nether = dims.equals("nether") || dims.equals("both");
+        int color = 11;
+        try {
+            color = SpongeCli.intProp("sponge.xaeroColor", 11);
+            if (color < 0 || color > 15) {
+                System.out.println("[SpongeMonument] (export) -Dsponge.xaeroColor must be between 0 and 15, using 11");
+                color = 11;
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("[SpongeMonument] (export) Invalid -Dsponge.xaeroColor, using 11");
+        }
+
+        Set<String> formats = new LinkedHashSet<>();
+        for (String f : System.getProperty("sponge.exportFormats", "xaero").split(",")) {
+            if (!f.isBlank()) formats.add(f.trim().toLowerCase(Locale.ROOT));
+        }
+
+        long t0 = System.nanoTime();
+        List<Sink> sinks = new ArrayList<>();
+        try {
+            for (String f : formats) {
+                switch (f) {
+                    case "xaero" -> {
+                        if (overworld) sinks.add(new XaeroSink(baseDir.resolve("overworld_waypoints.txt"), color, 1, 63));
+                        if (nether) sinks.add(new XaeroSink(baseDir.resolve("nether_waypoints.txt"), color, 8, 128));
+                    }
+                    case "journeymap" -> sinks.add(new JourneyMapSink(baseDir.resolve("waypoints"), color, overworld, nether));
+                    case "voxelmap" -> sinks.add(new VoxelMapSink(baseDir.resolve("voxelmap_waypoints.points"), color, overworld, nether));
+                    case "geojson" -> sinks.add(new GeoJsonSink(baseDir.resolve("monuments.geojson")));
+                    default -> System.out.println("[SpongeMonument] (export) Unknown export format '" + f + "' (expected xaero|journeymap|voxelmap|geojson); skipping.");
+                }
+            }
+            if (sinks.isEmpty()) return;
+
+            long exported = streamResults(resultsFile, minRooms, sinks);
+
+            System.out.println("[SpongeMonument] (export) Wrote " + exported + " monument(s) with >= " + minRooms + " rooms to "
+                    + String.join(", ", formats) + " in " + (System.nanoTime() - t0) / 1_000_000L + " ms");
+            if (exported == 0) {
+                System.out.println("[SpongeMonument] (export) No waypoints to write (filtered by minRooms?)");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed exporting waypoints from " + resultsFile.toAbsolutePath(), e);
+        } finally {
+            for (Sink s : sinks) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    System.out.println("[SpongeMonument] (export) Failed closing sink: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long streamResults(Path resultsFile, int minRooms, List<Sink> sinks) throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(resultsFile, StandardCharsets.UTF_8)) {
+            String headerLine = r.readLine();
+            if (headerLine == null) return 0;
+
+            // Locate columns by name so extra columns (layout signature etc.) don't matter.
+            String[] header = headerLine.split(",");
+            int xIdx = -1, zIdx = -1, roomIdx = -1;
+            for (int i = 0; i < header.length; i++) {
+                switch (header[i].trim()) {
+                    case "x" -> xIdx = i;
+                    case "z" -> zIdx = i;
+                    case "inferred_sponge_rooms" -> roomIdx = i;
+                    default -> { }
+                }
+            }
+            if (xIdx < 0 || zIdx < 0 || roomIdx < 0) {
+                System.out.println("[SpongeMonument] (export) results.csv missing required columns; skipping export.");
+                return 0;
+            }
+            int needed = Math.max(xIdx, Math.max(zIdx, roomIdx));
+
+            long exported = 0;
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] row = line.split(",");
+                if (row.length <= needed) continue;
+                int x, z, rooms;
+                try {
+                    x = Integer.parseInt(row[xIdx].trim());
+                    z = Integer.parseInt(row[zIdx].trim());
+                    rooms = Integer.parseInt(row[roomIdx].trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (rooms < minRooms) continue;
+                for (Sink s : sinks) {
+                    s.accept(x, z, rooms);
+                }
+                exported++;
+            }
+            return exported;
+        }
+    }
+
+    /**
+     * A sink writing one file, opened on the first row so an export with nothing to write leaves no file behind
+     * (the old Groovy exporter skipped empty lists the same way).
+     */
+    abstract static class FileSink implements Sink {
+        private final Path out;
+        private BufferedWriter w;
+
+        FileSink(Path out) {
+            this.out = out;
+        }
+
+        BufferedWriter writer() throws IOException {
+            if (w == null) {
+                w = Files.newBufferedWriter(out, StandardCharsets.UTF_8);
+                writeHeader(w);
+            }
+            return w;
+        }
+
+        void writeHeader(BufferedWriter w) throws IOException {}
+
+        void writeFooter(BufferedWriter w) throws IOException {}
+
+        @Override
+        public void close() throws IOException {
+            if (w == null) return;
+            try {
+                writeFooter(w);
+            } finally {
+                w.close();
+            }
+        }
+    }
+
+    /** Xaero's Minimap: one {@code waypoint:...} line per monument (Nether coordinates are floored / 8). */
+    static final class XaeroSink extends FileSink {
+        private final int color;
+        private final int scale;
+        private final int y;
+
+        XaeroSink(Path out, int color, int scale, int y) {
+            super(out);
+            this.color = color;
+            this.scale = scale;
+            this.y = y;
+        }
+
+        @Override
+        public void accept(int x, int z, int rooms) throws IOException {
+            writer().write("waypoint:" + rooms + ":" + rooms + ":" + Math.floorDiv(x, scale) + ":" + y + ":" + Math.floorDiv(z, scale)
+                    + ":" + color + ":false:0:gui.xaero_default:false:0:0\n");
+        }
+    }
+
+    /**
+     * JourneyMap: one JSON object per waypoint, each in its own {@code <name>_<x>,<y>,<z>.json} file (JourneyMap's
+     * own layout, so the folder can be copied into a world's waypoints directory as is).
+     */
+    static final class JourneyMapSink implements Sink {
+        private final Path dir;
+        private final int rgb;
+        private final boolean overworld;
+        private final boolean nether;
+        private boolean created;
+
+        JourneyMapSink(Path dir, int color, boolean overworld, boolean nether) {
+            this.dir = dir;
+            this.rgb = COLOR_RGB[color];
+            this.overworld = overworld;
+            this.nether = nether;
+        }
+
+        @Override
+        public void accept(int x, int z, int rooms) throws IOException {
+            if (overworld) write(x, 63, z, rooms, "minecraft:overworld");
+            if (nether) write(Math.floorDiv(x, 8), 128, Math.floorDiv(z, 8), rooms, "minecraft:the_nether");
+        }
+
+        private void write(int x, int y, int z, int rooms, String dim) throws IOException {
+            if (!created) {
+                Files.createDirectories(dir);
+                created = true;
+            }
+            String name = rooms + " sponge rooms";
+            String id = name + "_" + x + "," + y + "," + z;
+            Files.writeString(dir.resolve(id + ".json"),
+                    "{\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"icon\":\"waypoint-normal.png\","
+                    + "\"x\":" + x + ",\"y\":" + y + ",\"z\":" + z
+                    + ",\"r\":" + ((rgb >> 16) & 0xFF) + ",\"g\":" + ((rgb >> 8) & 0xFF) + ",\"b\":" + (rgb & 0xFF)
+                    + ",\"enable\":true,\"type\":\"Normal\",\"origin\":\"SpongeAnalyzer\",\"dimensions\":[\"" + dim + "\"],\"persistent\":true}\n",
+                    StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /** VoxelMap: {@code .points} lines ({@code name:..,x:..,z:..,y:..,...}). */
+    static final class VoxelMapSink extends FileSink {
+        private final String rgb;
+        private final boolean overworld;
+        private final boolean nether;
+
+        VoxelMapSink(Path out, int color, boolean overworld, boolean nether) {
+            super(out);
+            int c = COLOR_RGB[color];
+            this.rgb = String.format(Locale.ROOT, "red:%.3f,green:%.3f,blue:%.3f",
+                    ((c >> 16) & 0xFF) / 255.0, ((c >> 8) & 0xFF) / 255.0, (c & 0xFF) / 255.0);
+            this.overworld = overworld;
+            this.nether = nether;
+        }
+
+        @Override
+        public void accept(int x, int z, int rooms) throws IOException {
+            if (overworld) {
+                writer().write("name:" + rooms + " sponge rooms,x:" + x + ",z:" + z + ",y:63,enabled:true," + rgb
+                        + ",suffix:,world:,dimensions:overworld#\n");
+            }
+            if (nether) {
+                writer().write("name:" + rooms + " sponge rooms,x:" + Math.floorDiv(x, 8) + ",z:" + Math.floorDiv(z, 8) + ",y:128,enabled:true," + rgb
+                        + ",suffix:,world:,dimensions:the_nether#\n");
+            }
+        }
+    }
+
+    /** GeoJSON FeatureCollection of overworld points ([x, z] as planar coordinates). */
+    static final class GeoJsonSink extends FileSink {
+        private boolean first = true;
+
+        GeoJsonSink(Path out) {
+            super(out);
+        }
+
+        @Override
+        void writeHeader(BufferedWriter w) throws IOException {
+            w.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+        }
+
+        @Override
+        public void accept(int x, int z, int rooms) throws IOException {
+            BufferedWriter w = writer();
+            if (!first) w.write(",\n");
+            first = false;
+            w.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[" + x + "," + z + "]},"
+                    + "\"properties\":{\"sponge_rooms\":" + rooms + ",\"expected_wet_sponges\":" + MonumentProfile.expectedWetSponges(rooms) + "}}");
+        }
+
+        @Override
+        void writeFooter(BufferedWriter w) throws IOException {
+            w.write("\n]}\n");
+        }
+    }
+}
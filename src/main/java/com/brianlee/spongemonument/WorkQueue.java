@@ -0,0 +1,573 @@
+package com.brianlee.spongemonument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+/**
+ * Coordinator-free work queue on a shared directory (-Dsponge.queueDir), so analyze workers on any number of hosts
+ * can split one scan and join or leave while it runs.
+ *
+ * <pre>
+ *   queue.properties   seed, candidate count, lease expiry (written last by spongeEnqueue)
+ *   candidates.csv     the coords phase's candidates
+ *   open/              unclaimed leases: &lt;start&gt;_&lt;size&gt;.lease for each candidate range, plus merge.lease
+ *   claimed/           &lt;lease&gt;@&lt;worker&gt;.lease; its mtime is the owner's heartbeat
+ *   done/              finished leases
+ *   parts/             results_part_&lt;start&gt;_&lt;size&gt;.csv, published before its lease moves to done/
+ *   clock/, workers/   per-worker clock probe and scratch directory
+ * </pre>
+ *
+ * Every state change is a rename: of two workers renaming the same lease, one gets NoSuchFileException. The owner
+ * rewrites its lease every quarter of leaseSeconds. A lease that has not been written for leaseSeconds is taken over
+ * by whichever worker renames it first and put back in open/; one that has expired sponge.leaseAttempts times (its
+ * workers keep dying on it, usually out of memory) is split in half. Ages are measured against a file the worker has
+ * just written, so only the file server's clock matters.
+ *
+ * Expiry reads mtimes and directory listings, so on NFS the share must be mounted with {@code actimeo=0} (or
+ * {@code noac}): with attribute caching a live lease can look up to acregmax/acdirmax (60 s by default) older than
+ * it is and be taken over while its owner is still working. That costs duplicate work, never wrong results (see the
+ * merge below), and the {@link #MIN_LEASE_SECONDS} floor keeps it rare even on a caching mount.
+ *
+ * merge.lease can be claimed once no range lease is open or claimed. Splits and takeovers can leave overlapping done
+ * ranges; they always nest, so the merge picks one tiling of the candidate list. Its outputs are written next to the
+ * queue and to the merging worker's project directory.
+ */
+public final class WorkQueue {
+
+    public static final String STATE_FILE = "queue.properties";
+    private static final String CANDIDATES_FILE = "candidates.csv";
+    private static final String OPEN = "open";
+    private static final String CLAIMED = "claimed";
+    private static final String DONE = "done";
+    private static final String PARTS = "parts";
+    private static final String CLOCK = "clock";
+    private static final String WORKERS = "workers";
+    private static final String SUFFIX = ".lease";
+    private static final String MERGE = "merge";
+
+    // Well above NFS's default 60 s attribute cache plus a heartbeat period.
+    private static final int MIN_LEASE_SECONDS = 90;
+
+    private static final String[] OUTPUT_FILES = {
+            "results.csv", ResultsBinary.FILE_NAME, MonumentIndex.FILE_NAME, MonumentLocateSmokeTest.MERGE_STATS_FILE
+    };
+
+    /** A range of the candidate list, or the merge ({@code size == 0}). */
+    private record Lease(int start, int size) {
+        static final Lease MERGE_LEASE = new Lease(0, 0);
+
+        boolean isMerge() {
+            return size == 0;
+        }
+
+        String name() {
+            return isMerge() ? MERGE : start + "_" + size;
+        }
+
+        /** Parses {@code <start>_<size>[@worker].lease} or {@code merge[@worker].lease}; null for anything else. */
+        static Lease parse(String fileName) {
+            if (!fileName.endsWith(SUFFIX)) return null;
+            String name = fileName.substring(0, fileName.length() - SUFFIX.length());
+            int at = name.indexOf('@');
+            if (at >= 0) name = name.substring(0, at);
+            if (name.equals(MERGE)) return MERGE_LEASE;
+            int sep = name.indexOf('_');
+            if (sep <= 0) return null;
+            try {
+                return new Lease(Integer.parseInt(name.substring(0, sep)), Integer.parseInt(name.substring(sep + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Logger log = SpongeMonumentMod.LOGGER;
+    private final Path dir;
+    private final String worker;
+    private final Path scratch;
+    private final long leaseMs;
+    private final int maxAttempts = Math.max(1, Integer.getInteger("sponge.leaseAttempts", 2));
+    private final double heapTarget = Double.parseDouble(System.getProperty("sponge.heapTarget", "0.6"));
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "SpongeMonument-Lease");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // The lease this worker is working on (read by the shutdown hook).
+    private volatile Path held;
+    private volatile Lease heldLease;
+    private ScheduledFuture<?> beat;
+
+    private WorkQueue(Path dir, String worker, long leaseMs) {
+        this.dir = dir;
+        this.worker = worker;
+        this.scratch = dir.resolve(WORKERS).resolve(worker);
+        this.leaseMs = leaseMs;
+    }
+
+    /** -Dsponge.queueDir, relative to the project directory (default {@code queue}); absolute for a shared mount. */
+    public static Path configuredDir(Path baseDir) {
+        return baseDir.resolve(System.getProperty("sponge.queueDir", "queue"));
+    }
+
+    /** -Dsponge.workerId, default {@code <host>-<pid>}. Must be unique among the workers of a queue. */
+    public static String workerId() {
+        String id = System.getProperty("sponge.workerId");
+        if (id == null || id.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                host = "host";
+            }
+            id = host + "-" + ProcessHandle.current().pid();
+        }
+        // '@' separates lease and owner in claimed/ file names.
+        return id.trim().replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    // ---- spongeEnqueue ----
+
+    /** Turns {@code <baseDir>/candidates.csv} into a new queue of leases of -Dsponge.leaseSize candidates. */
+    public static void enqueue(Path baseDir) {
+        String seed = System.getProperty("sponge.seed");
+        if (seed == null || seed.isBlank()) {
+            throw new IllegalArgumentException("Missing -Dsponge.seed=<seed> (required)");
+        }
+        int leaseSize = SpongeCli.intProp("sponge.leaseSize", 500);
+        int leaseSeconds = SpongeCli.intProp("sponge.leaseSeconds", 120);
+        if (leaseSize < 1) throw new IllegalArgumentException("-Dsponge.leaseSize must be >= 1");
+        if (leaseSeconds < MIN_LEASE_SECONDS) {
+            throw new IllegalArgumentException("-Dsponge.leaseSeconds must be >= " + MIN_LEASE_SECONDS);
+        }
+
+        Path dir = configuredDir(baseDir);
+        if (Files.exists(dir.resolve(STATE_FILE))) {
+            throw new IllegalStateException(dir.toAbsolutePath() + " already holds a queue; delete it or pick another -Dsponge.queueDir");
+        }
+        Path candidatesFile = baseDir.resolve(CANDIDATES_FILE);
+        if (!Files.exists(candidatesFile)) {
+            throw new IllegalStateException("candidates file not found: " + candidatesFile.toAbsolutePath());
+        }
+        int count = MonumentLocateSmokeTest.readCandidates(candidatesFile).size();
+
+        int leases = 0;
+        try {
+            for (String sub : new String[]{OPEN, CLAIMED, DONE, PARTS, CLOCK, WORKERS}) {
+                Files.createDirectories(dir.resolve(sub));
+            }
+            Files.copy(candidatesFile, dir.resolve(CANDIDATES_FILE), StandardCopyOption.REPLACE_EXISTING);
+            for (int start = 0; start < count; start += leaseSize) {
+                writeLease(dir.resolve(OPEN).resolve(new Lease(start, Math.min(leaseSize, count - start)).name() + SUFFIX), 0, "enqueue", true);
+                leases++;
+            }
+            writeLease(dir.resolve(OPEN).resolve(MERGE + SUFFIX), 0, "enqueue", true);
+
+            // Last, so a worker that sees the state file also sees every lease.
+            Properties p = new Properties();
+            p.setProperty("seed", seed.trim());
+            p.setProperty("candidates", Integer.toString(count));
+            p.setProperty("leaseSize", Integer.toString(leaseSize));
+            p.setProperty("leaseSeconds", Integer.toString(leaseSeconds));
+            Path tmp = dir.resolve(STATE_FILE + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                p.store(out, "SpongeMonument work queue");
+            }
+            Files.move(tmp, dir.resolve(STATE_FILE), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed creating work queue: " + dir.toAbsolutePath(), e);
+        }
+
+        SpongeMonumentMod.LOGGER.info("[SpongeMonument] (enqueue) {} candidate(s) in {} lease(s) of up to {} -> {}",
+                count, leases, leaseSize, dir.toAbsolutePath());
+    }
+
+    // ---- sponge.mode=worker ----
+
+    /**
+     * Claims and analyzes leases until the queue is merged, merging it if this worker is the one to claim the merge.
+     * Returns early, so spongeWorker starts a fresh server, once the heap retained after a lease exceeds
+     * -Dsponge.heapTarget of the maximum.
+     */
+    public static void runWorker(MonumentSource source, Path dir, long worldSeed) {
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(dir.resolve(STATE_FILE))) {
+            state.load(in);
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("No work queue in " + dir.toAbsolutePath() + " (run spongeQueue first)");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed reading " + dir.resolve(STATE_FILE).toAbsolutePath(), e);
+        }
+        long queueSeed = Long.parseLong(state.getProperty("seed"));
+        if (queueSeed != worldSeed) {
+            throw new IllegalStateException("Queue " + dir.toAbsolutePath() + " is for seed " + queueSeed + ", this world has " + worldSeed);
+        }
+
+        WorkQueue q = new WorkQueue(dir, workerId(), TimeUnit.SECONDS.toMillis(Long.parseLong(state.getProperty("leaseSeconds"))));
+        Thread hook = new Thread(q::releaseOnShutdown, "SpongeMonument-LeaseRelease");
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            q.work(source, Integer.parseInt(state.getProperty("candidates")));
+        } catch (IOException e) {
+            throw new RuntimeException("Work queue I/O failed in " + dir.toAbsolutePath(), e);
+        } finally {
+            q.heartbeat.shutdownNow();
+            Runtime.getRuntime().removeShutdownHook(hook);
+        }
+    }
+
+    private void work(MonumentSource source, int count) throws IOException {
+        Files.createDirectories(scratch);
+        log.info("[SpongeMonument] (worker) {} joined queue {} ({} candidates, lease expiry {} s)",
+                worker, dir.toAbsolutePath(), count, leaseMs / 1000L);
+        recoverOwn();
+
+        LongList candidates = null;
+        int analyzed = 0;
+        while (true) {
+            reclaimExpired();
+
+            Lease lease = claimRange();
+            if (lease != null) {
+                if (candidates == null) candidates = MonumentLocateSmokeTest.readCandidates(dir.resolve(CANDIDATES_FILE));
+                analyze(source, candidates, lease);
+                analyzed++;
+                double heap = settledHeapFraction();
+                if (heap > heapTarget) {
+                    log.info("[SpongeMonument] (worker) Heap at {}% after {} lease(s); leaving for a fresh server",
+                            Math.round(heap * 100.0), analyzed);
+                    return;
+                }
+                continue;
+            }
+
+            if (!rangesLeft()) {
+                if (Files.exists(donePath(Lease.MERGE_LEASE))) {
+                    log.info("[SpongeMonument] (worker) Queue is merged; {} lease(s) analyzed by this worker", analyzed);
+                    return;
+                }
+                Path claimed = claim(Lease.MERGE_LEASE);
+                if (claimed != null && merge(claimed, count)) return;
+            }
+
+            try {
+                Thread.sleep(leaseMs / 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void analyze(MonumentSource source, LongList candidates, Lease lease) throws IOException {
+        Path claimed = held;
+        log.info("[SpongeMonument] (worker) Analyzing lease {} (candidates {}..{})", lease.name(), lease.start(), lease.start() + lease.size() - 1);
+
+        Path scratchPart = scratch.resolve("results_part_" + lease.start() + ".csv");
+        Files.deleteIfExists(scratchPart);
+        MonumentLocateSmokeTest.runAnalyzeBatch(source, candidates, lease.start(), lease.size(), scratch);
+        Files.deleteIfExists(BatchStats.file(scratch, lease.start()));
+
+        // The part goes public first, so every done lease has one.
+        Files.move(scratchPart, dir.resolve(PARTS).resolve("results_part_" + lease.name() + ".csv"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        complete(claimed, lease);
+    }
+
+    /** Merges the parts of one tiling of done leases; false (merge released) if a range is still in flight. */
+    private boolean merge(Path claimed, int count) throws IOException {
+        List<Lease> tiling = tiling(count);
+        if (tiling == null) {
+            // A takeover moved a range between claimed/ and open/ while rangesLeft() was listing them.
+            log.info("[SpongeMonument] (worker) Done leases do not cover the candidates yet; releasing the merge");
+            unhold();
+            release(claimed, Lease.MERGE_LEASE, 0);
+            return false;
+        }
+        log.info("[SpongeMonument] (worker) Merging {} part(s)", tiling.size());
+
+        Path staging = scratch.resolve(MERGE);
+        Files.createDirectories(staging);
+        try (Stream<Path> stale = Files.list(staging)) {
+            for (Path p : (Iterable<Path>) stale::iterator) Files.deleteIfExists(p);
+        }
+        for (Lease lease : tiling) {
+            String part = "results_part_" + lease.name() + ".csv";
+            Files.copy(dir.resolve(PARTS).resolve(part), staging.resolve(part));
+        }
+        // merge_stats counts the candidates from here; runMerge deletes the staged copies.
+        Files.copy(dir.resolve(CANDIDATES_FILE), staging.resolve(CANDIDATES_FILE));
+        MonumentLocateSmokeTest.runMerge(staging);
+
+        Path baseDir = SpongePaths.baseDir();
+        for (String name : OUTPUT_FILES) {
+            Path file = staging.resolve(name);
+            if (!Files.exists(file)) continue;
+            Path tmp = dir.resolve(name + ".tmp");
+            Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.copy(file, baseDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+        complete(claimed, Lease.MERGE_LEASE);
+        log.info("[SpongeMonument] (worker) Queue merged; results in {} and {}", dir.toAbsolutePath(), baseDir.toAbsolutePath());
+        return true;
+    }
+
+    /**
+     * Done ranges covering candidates 0..count-1 exactly once, or null if there is a gap. Ranges only ever come from
+     * halving, so two done ranges are either disjoint or one contains the other; the first-starting, largest one wins.
+     */
+    private List<Lease> tiling(int count) throws IOException {
+        List<Lease> done = new ArrayList<>();
+        for (Path p : list(DONE)) {
+            Lease lease = Lease.parse(p.getFileName().toString());
+            if (lease != null && !lease.isMerge()) done.add(lease);
+        }
+        done.sort(Comparator.comparingInt(Lease::start).thenComparing(Comparator.comparingInt(Lease::size).reversed()));
+
+        List<Lease> tiling = new ArrayList<>();
+        int covered = 0;
+        for (Lease lease : done) {
+            if (lease.start() < covered) continue;  // nested in a range already taken
+            if (lease.start() > covered) return null;
+            tiling.add(lease);
+            covered = lease.start() + lease.size();
+        }
+        return covered >= count ? tiling : null;
+    }
+
+    // ---- leases ----
+
+    /** Claims a random open range lease; null when there is none left to claim. */
+    private Lease claimRange() throws IOException {
+        List<Path> open = list(OPEN);
+        // Random order keeps workers that list at the same moment from all racing for the same lease.
+        Collections.shuffle(open);
+        for (Path p : open) {
+            Lease lease = Lease.parse(p.getFileName().toString());
+            if (lease == null || lease.isMerge()) continue;
+            if (claim(lease) != null) return lease;
+        }
+        return null;
+    }
+
+    /** Renames an open lease to this worker; returns the claimed file, or null if another worker got it first. */
+    private Path claim(Lease lease) throws IOException {
+        Path open = openPath(lease);
+        Path claimed = claimedPath(lease);
+        int attempts;
+        try {
+            attempts = attempts(open);
+            // Refresh the mtime first: a lease that sat in open/ for an hour must not look expired once claimed.
+            writeLease(open, attempts, worker, false);
+            Files.move(open, claimed, StandardCopyOption.ATOMIC_MOVE);
+            writeLease(claimed, attempts, worker, false);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            return null;
+        }
+        hold(claimed, lease, attempts);
+        return claimed;
+    }
+
+    private void hold(Path claimed, Lease lease, int attempts) {
+        held = claimed;
+        heldLease = lease;
+        long period = Math.max(1L, leaseMs / 4);
+        beat = heartbeat.scheduleAtFixedRate(() -> {
+            try {
+                writeLease(claimed, attempts, worker, false);
+            } catch (NoSuchFileException e) {
+                log.warn("[SpongeMonument] (worker) Lease {} was taken over (heartbeat missed); finishing it anyway", lease.name());
+                throw new IllegalStateException("lease lost");  // cancels the heartbeat
+            } catch (IOException e) {
+                log.warn("[SpongeMonument] (worker) Heartbeat for lease {} failed", lease.name(), e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void unhold() {
+        if (beat != null) beat.cancel(false);
+        beat = null;
+        held = null;
+        heldLease = null;
+    }
+
+    private void complete(Path claimed, Lease lease) throws IOException {
+        unhold();
+        try {
+            Files.move(claimed, donePath(lease), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Taken over during a stall; the work is still valid, and the merge drops whichever copy is redundant.
+            publish(donePath(lease), 0);
+        }
+    }
+
+    /** Moves expired leases of other workers (or dead ones) back to open/. */
+    private void reclaimExpired() throws IOException {
+        long now = fsNow();
+        for (Path p : list(CLAIMED)) {
+            String name = p.getFileName().toString();
+            Lease lease = Lease.parse(name);
+            if (lease == null || p.equals(held)) continue;
+            long modified;
+            try {
+                modified = Files.getLastModifiedTime(p).toMillis();
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            if (now - modified < leaseMs) continue;
+
+            Path mine = claimedPath(lease);
+            try {
+                Files.move(p, mine, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                continue;
+            }
+            int attempts = attempts(mine) + 1;
+            log.warn("[SpongeMonument] (worker) Lease {} of {} expired ({} s without a heartbeat, attempt {}); reassigning",
+                    lease.name(), name.substring(name.indexOf('@') + 1, name.length() - SUFFIX.length()), (now - modified) / 1000L, attempts);
+            release(mine, lease, attempts);
+        }
+    }
+
+    /** Leases claimed under this worker id by an earlier process (killed, or died of OutOfMemoryError) go back at once. */
+    private void recoverOwn() throws IOException {
+        String own = "@" + worker + SUFFIX;
+        for (Path p : list(CLAIMED)) {
+            if (!p.getFileName().toString().endsWith(own)) continue;
+            Lease lease = Lease.parse(p.getFileName().toString());
+            if (lease == null) continue;
+            int attempts = attempts(p) + 1;
+            log.warn("[SpongeMonument] (worker) Releasing lease {} left by this worker's previous run (attempt {})", lease.name(), attempts);
+            release(p, lease, attempts);
+        }
+    }
+
+    /** Puts a lease this worker holds back in open/, split in half once it has failed sponge.leaseAttempts times. */
+    private void release(Path mine, Lease lease, int attempts) throws IOException {
+        if (!lease.isMerge() && lease.size() > 1 && attempts >= maxAttempts) {
+            int half = lease.size() / 2;
+            // Halves first: a crash in between leaves a duplicate (dropped by the merge), never a gap.
+            publish(openPath(new Lease(lease.start(), half)), 0);
+            publish(openPath(new Lease(lease.start() + half, lease.size() - half)), 0);
+            Files.deleteIfExists(mine);
+            log.warn("[SpongeMonument] (worker) Split lease {} in half after {} failed attempt(s)", lease.name(), attempts);
+            return;
+        }
+        try {
+            writeLease(mine, attempts, worker, false);
+            Files.move(mine, openPath(lease), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Already taken over by someone else.
+        }
+    }
+
+    /** Shutdown hook: a worker stopped with Ctrl-C hands its lease back instead of letting it expire. */
+    private void releaseOnShutdown() {
+        Path claimed = held;
+        Lease lease = heldLease;
+        if (claimed == null || lease == null) return;
+        try {
+            Files.move(claimed, openPath(lease), StandardCopyOption.ATOMIC_MOVE);
+            log.info("[SpongeMonument] (worker) Stopping; released lease {}", lease.name());
+        } catch (IOException ignored) {
+            // It expires instead.
+        }
+    }
+
+    private boolean rangesLeft() throws IOException {
+        for (String sub : new String[]{CLAIMED, OPEN}) {
+            for (Path p : list(sub)) {
+                Lease lease = Lease.parse(p.getFileName().toString());
+                if (lease != null && !lease.isMerge()) return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- files ----
+
+    private Path openPath(Lease lease) {
+        return dir.resolve(OPEN).resolve(lease.name() + SUFFIX);
+    }
+
+    private Path claimedPath(Lease lease) {
+        return dir.resolve(CLAIMED).resolve(lease.name() + "@" + worker + SUFFIX);
+    }
+
+    private Path donePath(Lease lease) {
+        return dir.resolve(DONE).resolve(lease.name() + SUFFIX);
+    }
+
+    /** Writes a lease in scratch, then renames it into place, so no one sees it half written. */
+    private void publish(Path target, int attempts) throws IOException {
+        Path tmp = scratch.resolve(target.getFileName());
+        writeLease(tmp, attempts, worker, true);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The file server's current time: the mtime of a file just written (worker clocks may disagree). */
+    private long fsNow() throws IOException {
+        Path probe = dir.resolve(CLOCK).resolve(worker);
+        Files.writeString(probe, Long.toString(System.currentTimeMillis()));
+        return Files.getLastModifiedTime(probe).toMillis();
+    }
+
+    private List<Path> list(String sub) throws IOException {
+        try (Stream<Path> s = Files.list(dir.resolve(sub))) {
+            return new ArrayList<>(s.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList());
+        }
+    }
+
+    /** Rewriting the content is the heartbeat; without {@code create} a lease that was renamed away fails. */
+    private static void writeLease(Path file, int attempts, String owner, boolean create) throws IOException {
+        String text = "attempts=" + attempts + "\nowner=" + owner + "\nwritten=" + System.currentTimeMillis() + "\n";
+        if (create) {
+            Files.writeString(file, text);
+        } else {
+            Files.writeString(file, text, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+    }
+
+    private static int attempts(Path lease) throws IOException {
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(lease)) {
+            p.load(r);
+        }
+        try {
+            return Integer.parseInt(p.getProperty("attempts", "0").trim());
+        } catch (NumberFormatException e) {
+            return 0;  // read mid-rewrite
+        }
+    }
+
+    private static double settledHeapFraction() {
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return heap.getUsed() / (double) heap.getMax();
+    }
+}
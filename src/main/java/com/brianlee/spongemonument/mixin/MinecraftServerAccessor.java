@@ -0,0 +1,12 @@
+package com.brianlee.spongemonument.mixin;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelStorage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(MinecraftServer.class)
+public interface MinecraftServerAccessor {
+    @Accessor("session")
+    LevelStorage.Session spongemonument$getSession();
+}
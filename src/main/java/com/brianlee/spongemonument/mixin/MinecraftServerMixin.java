@@ -0,0 +1,58 @@
+package com.brianlee.spongemonument.mixin;
+
+import com.brianlee.spongemonument.AnalysisProfile;
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.dimension.DimensionOptions;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fast analysis-server startup (see {@link AnalysisProfile#fastStartup()}).
+ *
+ * Nothing here changes world generation: structure starts depend only on the seed and the overworld
+ * generator, so skipping spawn work and the other dimensions cannot change any sponge-room count.
+ */
+@Mixin(MinecraftServer.class)
+public abstract class MinecraftServerMixin {
+
+    @Inject(method = "setupSpawn", at = @At("HEAD"), cancellable = true)
+    private static void spongemonument$skipSpawnSearch(CallbackInfo ci) {
+        // Vanilla searches biomes/heightmaps for a spawn point on new worlds; the default (0, y, 0) is fine.
+        if (AnalysisProfile.fastStartup()) {
+            ci.cancel();
+        }
+    }
+
+    @Inject(method = "prepareStartRegion", at = @At("HEAD"), cancellable = true)
+    private void spongemonument$skipSpawnChunks(CallbackInfo ci) {
+        // No players ever join; the spawn area would be generated only to be thrown away.
+        if (AnalysisProfile.fastStartup()) {
+            ci.cancel();
+        }
+    }
+
+    @WrapOperation(
+            method = "createWorlds",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/registry/Registry;getEntrySet()Ljava/util/Set;")
+    )
+    private Set<Map.Entry<RegistryKey<DimensionOptions>, DimensionOptions>> spongemonument$overworldOnly(Registry<DimensionOptions> registry, Operation<Set<Map.Entry<RegistryKey<DimensionOptions>, DimensionOptions>>> original) {
+        Set<Map.Entry<RegistryKey<DimensionOptions>, DimensionOptions>> all = original.call(registry);
+        if (!AnalysisProfile.fastStartup()) {
+            return all;
+        }
+        // The overworld is created separately before this loop; filtering the loop drops Nether/End.
+        return all.stream()
+                .filter(e -> DimensionOptions.OVERWORLD.equals(e.getKey()))
+                .collect(Collectors.toSet());
+    }
+}
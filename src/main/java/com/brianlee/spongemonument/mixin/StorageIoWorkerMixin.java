@@ -0,0 +1,61 @@
+package com.brianlee.spongemonument.mixin;
+
+import com.brianlee.spongemonument.AnalysisProfile;
+import net.minecraft.world.storage.StorageIoWorker;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Zero-persistence storage for disposable analysis worlds.
+ *
+ * Chunk, POI and entity storage all funnel through StorageIoWorker, so short-circuiting it here
+ * means no region file is ever opened, written or flushed. A bare method name only binds the first
+ * matching overload, so the write handler lists both setResult descriptors (NbtCompound and Supplier)
+ * and requires both to be found.
+ */
+@Mixin(StorageIoWorker.class)
+public abstract class StorageIoWorkerMixin {
+
+    @Inject(
+            method = {
+                    "setResult(Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/nbt/NbtCompound;)Ljava/util/concurrent/CompletableFuture;",
+                    "setResult(Lnet/minecraft/util/math/ChunkPos;Ljava/util/function/Supplier;)Ljava/util/concurrent/CompletableFuture;"
+            },
+            at = @At("HEAD"),
+            cancellable = true,
+            require = 2
+    )
+    private void spongemonument$dropWrite(CallbackInfoReturnable<CompletableFuture<Void>> cir) {
+        if (AnalysisProfile.zeroPersistence()) {
+            cir.setReturnValue(CompletableFuture.completedFuture(null));
+        }
+    }
+
+    @Inject(method = "readChunkData", at = @At("HEAD"), cancellable = true)
+    private void spongemonument$readNothing(CallbackInfoReturnable<CompletableFuture<Optional<?>>> cir) {
+        if (AnalysisProfile.zeroPersistence()) {
+            // Nothing is ever saved, so every chunk is "new" and gets regenerated deterministically.
+            cir.setReturnValue(CompletableFuture.completedFuture(Optional.empty()));
+        }
+    }
+
+    @Inject(method = "completeAll", at = @At("HEAD"), cancellable = true)
+    private void spongemonument$skipFlush(CallbackInfoReturnable<CompletableFuture<Void>> cir) {
+        if (AnalysisProfile.zeroPersistence()) {
+            cir.setReturnValue(CompletableFuture.completedFuture(null));
+        }
+    }
+
+    @Inject(method = "needsBlending", at = @At("HEAD"), cancellable = true)
+    private void spongemonument$noBlending(CallbackInfoReturnable<Boolean> cir) {
+        if (AnalysisProfile.zeroPersistence()) {
+            // Blending probes scan neighbouring region files for old-format chunks; there are none.
+            cir.setReturnValue(false);
+        }
+    }
+}